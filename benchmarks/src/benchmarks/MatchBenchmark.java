@@ -0,0 +1,99 @@
+package benchmarks;
+
+import chess.ChessMatch;
+import chess.ChessPosition;
+import chess.Fen;
+import chess.Move;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+//every benchmark that plays a move takes it back, so the position stays fixed
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MatchBenchmark {
+    @Param({"opening", "middlegame", "endgame"})
+    public String position;
+
+    private ChessMatch match;
+    private ChessMatch mateInOne;
+    private int[] moves;
+    private int quietMove;
+    private int matingMove;
+    private ChessPosition source;
+    private ChessPosition target;
+
+    @Setup
+    public void setup(){
+        match = Fen.parse(Positions.byName(position));
+        moves = new int[ChessMatch.MAX_MOVES];
+        int count = match.generateMoves(moves);
+        quietMove = moves[0];
+        for (int i = 0; i < count; i++){
+            if (!Move.isCapture(moves[i]) && Move.promotion(moves[i]) == null){
+                quietMove = moves[i];
+                break;
+            }
+        }
+        source = chessPosition(Move.from(quietMove));
+        target = chessPosition(Move.to(quietMove));
+
+        mateInOne = Fen.parse(Positions.MATE_IN_ONE);
+        count = mateInOne.generateMoves(moves);
+        for (int i = 0; i < count; i++){
+            if (Move.toString(moves[i]).equals("h5f7")){
+                matingMove = moves[i];
+            }
+        }
+    }
+
+    private static ChessPosition chessPosition(int square){
+        return ChessPosition.of(square);
+    }
+
+    @Benchmark
+    public int generateMoves(){
+        return match.generateMoves(moves);
+    }
+
+    @Benchmark
+    public Object getPieces(){
+        return match.getPieces();
+    }
+
+    @Benchmark
+    public Object performChessMove(){
+        Object captured = match.performChessMove(source, target);
+        match.undoLastMove();
+        return captured;
+    }
+
+    //doMove only runs the check test, performMove adds the checkmate/draw evaluation on top
+    @Benchmark
+    public boolean doMoveCheckTest(){
+        match.doMove(quietMove);
+        boolean check = match.getCheck();
+        match.undoLastMove();
+        return check;
+    }
+
+    @Benchmark
+    public boolean performMoveGameState(){
+        match.performMove(quietMove);
+        boolean check = match.getCheck();
+        match.undoLastMove();
+        return check;
+    }
+
+    @Benchmark
+    public boolean checkmateTest(){
+        mateInOne.performMove(matingMove);
+        boolean mate = mateInOne.getCheckMate();
+        mateInOne.undoLastMove();
+        return mate;
+    }
+}
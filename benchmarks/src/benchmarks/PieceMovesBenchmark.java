@@ -0,0 +1,48 @@
+package benchmarks;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Fen;
+import chess.PieceType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+//possibleMoves() of every piece of one type in the middlegame position
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PieceMovesBenchmark {
+    @Param({"PAWN", "KNIGHT", "BISHOP", "ROOK", "QUEEN", "KING"})
+    public PieceType type;
+
+    private ChessPiece[] pieces;
+
+    @Setup
+    public void setup(){
+        ChessMatch match = Fen.parse(Positions.MIDDLEGAME);
+        long mask = match.getBitboard(match.getCurrentPlayer(), type);
+        pieces = new ChessPiece[Long.bitCount(mask)];
+        for (int i = 0; mask != 0; i++, mask &= mask - 1){
+            pieces[i] = match.getPiece(Long.numberOfTrailingZeros(mask));
+        }
+    }
+
+    @Benchmark
+    public void possibleMoves(Blackhole bh){
+        for (ChessPiece piece : pieces){
+            bh.consume(piece.possibleMoves());
+        }
+    }
+
+    @Benchmark
+    public void possibleMovesBitboard(Blackhole bh){
+        for (ChessPiece piece : pieces){
+            bh.consume(piece.possibleMovesBitboard());
+        }
+    }
+}
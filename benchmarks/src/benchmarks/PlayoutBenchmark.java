@@ -0,0 +1,40 @@
+package benchmarks;
+
+import chess.ChessMatch;
+import chess.GameState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+//full random games from the initial position through the public move API
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PlayoutBenchmark {
+    private static final int MAX_PLIES = 400;
+
+    private final int[] moves = new int[ChessMatch.MAX_MOVES];
+    private SplittableRandom random;
+
+    //same seed every iteration, so every run plays the same sequence of games
+    @Setup(Level.Iteration)
+    public void setup(){
+        random = new SplittableRandom(20240101L);
+    }
+
+    @Benchmark
+    public int randomGame(){
+        ChessMatch match = new ChessMatch();
+        int plies = 0;
+        while (match.getGameState() == GameState.ONGOING && plies < MAX_PLIES){
+            int count = match.generateMoves(moves);
+            match.performMove(moves[random.nextInt(count)]);
+            plies++;
+        }
+        return plies;
+    }
+}
@@ -6,6 +6,11 @@ import chess.ChessException;
 import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.ChessPosition;
+import chess.GameState;
+import chess.PieceType;
+import chess.variant.Variant;
+import chess.variant.VariantMatch;
+import chess.variant.VariantPiece;
 
 import java.util.ArrayList;
 import java.util.InputMismatchException;
@@ -13,12 +18,27 @@ import java.util.Scanner;
 import java.util.List;
 
 public class Main {
+    //in the order the chess game asks for them
+    private static final PieceType[] PROMOTIONS = {PieceType.BISHOP, PieceType.KNIGHT, PieceType.ROOK, PieceType.QUEEN};
+
+    //no argument: chess on the 8x8 board; a variant name ("los-alamos", "gardner") plays that variant
     public static void main(String[]args){
         Scanner sc = new Scanner(System.in);
+        if (args.length > 0){
+            Variant variant;
+            try{
+                variant = Variant.of(String.join(" ", args));
+            }catch(ChessException e){
+                System.out.println(e.getMessage());
+                return;
+            }
+            playVariant(new VariantMatch(variant), sc);
+            return;
+        }
         ChessMatch chessMatch = new ChessMatch();
         List<ChessPiece> captured = new ArrayList<>();
 
-        while(!chessMatch.getCheckMate()){
+        while(chessMatch.getGameState() == GameState.ONGOING){
             try{
                 UI.printMatch(chessMatch, captured);
                 System.out.println();
@@ -55,4 +75,63 @@ public class Main {
         }
         UI.printMatch(chessMatch, captured);
     }
+
+    private static void playVariant(VariantMatch match, Scanner sc){
+        List<VariantPiece> captured = new ArrayList<>();
+        while (match.getGameState() == GameState.ONGOING){
+            try{
+                UI.printMatch(match, captured);
+                System.out.println();
+                System.out.print("Source: ");
+                int source = UI.readSquare(sc, match.getGeometry());
+
+                boolean[][] possibleMoves = match.possibleMoves(source);
+                UI.printBoard(match.getPieces(), possibleMoves);
+
+                System.out.println();
+                System.out.print("Target: ");
+                int target = UI.readSquare(sc, match.getGeometry());
+
+                PieceType promotion = null;
+                if (match.isPromotion(source, target)){
+                    System.out.print("Enter piece for promotion (" + promotionLetters(match.getVariant()) + "): ");
+                    promotion = promotionType(match.getVariant(), sc.nextLine());
+                    while (promotion == null){
+                        System.out.print("Invalid value! Enter piece for promotion (" + promotionLetters(match.getVariant()) + "): ");
+                        promotion = promotionType(match.getVariant(), sc.nextLine());
+                    }
+                }
+
+                VariantPiece capturedPiece = match.performMove(source, target, promotion);
+                if (capturedPiece != null){
+                    captured.add(capturedPiece);
+                }
+            }catch(ChessException e){
+                System.out.println(e.getMessage());
+                sc.nextLine();
+            }
+        }
+        UI.printMatch(match, captured);
+    }
+
+    private static String promotionLetters(Variant variant){
+        StringBuilder sb = new StringBuilder();
+        for (PieceType type : PROMOTIONS){
+            if (variant.canPromoteTo(type)){
+                sb.append((sb.length() == 0) ? "" : "/").append("PNBRQK".charAt(type.ordinal()));
+            }
+        }
+        return sb.toString();
+    }
+
+    //null when the letter is not one the variant promotes to
+    private static PieceType promotionType(Variant variant, String text){
+        String letter = text.trim().toUpperCase();
+        for (PieceType type : PROMOTIONS){
+            if (letter.equals(String.valueOf("PNBRQK".charAt(type.ordinal()))) && variant.canPromoteTo(type)){
+                return type;
+            }
+        }
+        return null;
+    }
 }
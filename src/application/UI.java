@@ -1,9 +1,15 @@
 package application;
 
+import boardgame.BoardGeometry;
+import boardgame.Piece;
+import chess.ChessException;
 import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.ChessPosition;
 import chess.Color;
+import chess.GameState;
+import chess.variant.VariantMatch;
+import chess.variant.VariantPiece;
 
 import java.util.Arrays;
 import java.util.InputMismatchException;
@@ -38,60 +44,88 @@ public class UI {
             String s = sc.nextLine();
             char column = s.charAt(0);
             int row = Integer.parseInt(s.substring(1));
-            return new ChessPosition(column, row);
+            return ChessPosition.of(column, row);
         }catch (InputMismatchException e){
             throw new InputMismatchException("Error reading ChessPosition. Valid value are from a1 to h8.");
         }
     }
 
+    //a square of the variant's board, e.g. "b5"
+    public static int readSquare(Scanner sc, BoardGeometry geometry){
+        String s = sc.nextLine().trim();
+        int square = geometry.parseSquare(s);
+        if (square < 0){
+            throw new ChessException("Invalid position: " + s + ". Valid values are from a1 to " + geometry.squareName(geometry.getColumns() - 1) + ".");
+        }
+        return square;
+    }
+
     public static void printMatch(ChessMatch chessMatch, List<ChessPiece> captured){
         printBoard(chessMatch.getPieces());
         printCapturedPieces(captured);
         System.out.println("Turn: " + chessMatch.getTurn());
-        if (!chessMatch.getCheckMate()){
+        if (chessMatch.getGameState() == GameState.ONGOING){
             System.out.println("Waiting player: " + chessMatch.getCurrentPlayer());
             if (chessMatch.getCheck()){
                 System.out.println("CHECK!");
             }
-        }else{
+        }else if (chessMatch.getCheckMate()){
             System.out.println("CHECKMATE!");
-            System.out.println("Winner: " + chessMatch.getCurrentPlayer());
+            System.out.println("Winner: " + chessMatch.getWinner());
+        }else{
+            System.out.println("DRAW! (" + chessMatch.getGameState() + ")");
         }
 
 
 
     }
 
-    public static void printBoard(ChessPiece[][] pieces){
-        for (int i = 0; i < pieces.length; i++){
-            System.out.print((8 - i) + " ");
-            for (int j = 0; j < pieces[i].length; j++){
-                printPiece(pieces[i][j], false);
+    public static void printMatch(VariantMatch match, List<VariantPiece> captured){
+        printBoard(match.getPieces());
+        printCapturedPieces(captured);
+        System.out.println("Turn: " + match.getTurn());
+        if (match.getGameState() == GameState.ONGOING){
+            System.out.println("Waiting player: " + match.getCurrentPlayer());
+            if (match.getCheck()){
+                System.out.println("CHECK!");
             }
-            System.out.println();
+        }else if (match.getGameState() == GameState.CHECKMATE){
+            System.out.println("CHECKMATE!");
+            System.out.println("Winner: " + match.getWinner());
+        }else{
+            System.out.println("DRAW! (" + match.getGameState() + ")");
         }
-        System.out.println("  a b c d e f g h");
     }
 
-    public static void printBoard(ChessPiece[][] pieces, boolean[][] possibleMoves){
+    public static void printBoard(Piece[][] pieces){
+        printBoard(pieces, null);
+    }
+
+    //the labels come from the geometry of the board size, so the variant boards print the same way
+    public static void printBoard(Piece[][] pieces, boolean[][] possibleMoves){
+        BoardGeometry geometry = BoardGeometry.of(pieces.length, pieces[0].length);
         for (int i = 0; i < pieces.length; i++){
-            System.out.print((8 - i) + " ");
+            System.out.print(geometry.rowName(i) + " ");
             for (int j = 0; j < pieces[i].length; j++){
-                printPiece(pieces[i][j], possibleMoves[i][j]);
+                printPiece(pieces[i][j], possibleMoves != null && possibleMoves[i][j]);
             }
             System.out.println();
         }
-        System.out.println("  a b c d e f g h");
+        System.out.print(" ");
+        for (int j = 0; j < geometry.getColumns(); j++){
+            System.out.print(" " + geometry.columnName(j));
+        }
+        System.out.println();
     }
 
-    private static void printPiece(ChessPiece piece, boolean background){
+    private static void printPiece(Piece piece, boolean background){
         if(background){
             System.out.print(ANSI_WHITE_BACKGROUND);
         }
         if (piece == null){
             System.out.print("-" + ANSI_RESET);
         }else{
-            if (piece.getColor() == Color.YELLOW) {
+            if (colorOf(piece) == Color.YELLOW) {
                 System.out.print(ANSI_YELLOW + piece + ANSI_RESET);
             }
             else {
@@ -101,9 +135,13 @@ public class UI {
         System.out.print(" ");
     }
 
-    private static void printCapturedPieces(List<ChessPiece> captured) {
-        List<ChessPiece> yellow = captured.stream().filter(x -> x.getColor() == Color.YELLOW).collect(Collectors.toList());
-        List<ChessPiece> red = captured.stream().filter(x -> x.getColor() == Color.RED).collect(Collectors.toList());
+    private static Color colorOf(Piece piece){
+        return (piece instanceof ChessPiece) ? ((ChessPiece) piece).getColor() : ((VariantPiece) piece).getColor();
+    }
+
+    private static void printCapturedPieces(List<? extends Piece> captured) {
+        List<Piece> yellow = captured.stream().filter(x -> colorOf(x) == Color.YELLOW).collect(Collectors.toList());
+        List<Piece> red = captured.stream().filter(x -> colorOf(x) == Color.RED).collect(Collectors.toList());
         System.out.println("Captured pieces:");
         System.out.println("Yellow:");
         System.out.println(ANSI_YELLOW);
@@ -3,19 +3,25 @@ package boardgame;
 public class Board {
     private int rows;
     private int columns;
+    private final BoardGeometry geometry; //compartilhada por todos os tabuleiros do mesmo tamanho
 
     private Piece[][] pieces;
 
     public Board(int rows, int columns) {
-        if (rows < 1 || columns < 1){
-            throw new BoardException("Error creating board: there must be at least 1 row and 1 column");
-        }
+        this(BoardGeometry.of(rows, columns));
+    }
 
-        this.rows = rows;
-        this.columns = columns;
+    public Board(BoardGeometry geometry) {
+        this.geometry = geometry;
+        this.rows = geometry.getRows();
+        this.columns = geometry.getColumns();
         pieces = new Piece[rows][columns];
     }
 
+    public BoardGeometry getGeometry() {
+        return geometry;
+    }
+
     public int getRows() {
         return rows;
     }
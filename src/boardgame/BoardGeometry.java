@@ -0,0 +1,178 @@
+package boardgame;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+//the squares of a board of a given size and how they connect: neighbours in the 8 directions, the rays going
+//out of every square and the knight jumps. Squares are numbered row * columns + column. The tables are built
+//once per size and shared by every board of that size, so pieces walk them instead of checking the bounds at
+//every step. Immutable, safe to share between threads
+public final class BoardGeometry {
+    public static final int NORTH = 0;
+    public static final int NORTH_EAST = 1;
+    public static final int EAST = 2;
+    public static final int SOUTH_EAST = 3;
+    public static final int SOUTH = 4;
+    public static final int SOUTH_WEST = 5;
+    public static final int WEST = 6;
+    public static final int NORTH_WEST = 7;
+    public static final int DIRECTIONS = 8;
+
+    //row 0 is the top of the board, so north is the row before
+    private static final int[][] OFFSETS = {{-1, 0}, {-1, 1}, {0, 1}, {1, 1}, {1, 0}, {1, -1}, {0, -1}, {-1, -1}};
+    private static final int[][] KNIGHT_OFFSETS = {{-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}};
+
+    private static final ConcurrentHashMap<Integer, BoardGeometry> GEOMETRIES = new ConcurrentHashMap<>();
+
+    public static final BoardGeometry STANDARD = of(8, 8);
+
+    private final int rows;
+    private final int columns;
+    private final int size;
+    private final int[] neighbors; //square * DIRECTIONS + direction, -1 off the board
+    private final int[][][] rays; //[direction][square]: the squares from the next one to the edge
+    private final int[][] knightJumps;
+    private final Position[] positions;
+
+    private BoardGeometry(int rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+        size = rows * columns;
+        neighbors = new int[size * DIRECTIONS];
+        rays = new int[DIRECTIONS][size][];
+        knightJumps = new int[size][];
+        positions = new Position[size];
+
+        for (int square = 0; square < size; square++){
+            int row = square / columns;
+            int column = square % columns;
+            positions[square] = new Position(row, column, true);
+            for (int direction = 0; direction < DIRECTIONS; direction++){
+                int r = row + OFFSETS[direction][0];
+                int c = column + OFFSETS[direction][1];
+                neighbors[square * DIRECTIONS + direction] = contains(r, c) ? r * columns + c : -1;
+            }
+            int[] jumps = new int[KNIGHT_OFFSETS.length];
+            int count = 0;
+            for (int[] offset : KNIGHT_OFFSETS){
+                if (contains(row + offset[0], column + offset[1])){
+                    jumps[count++] = (row + offset[0]) * columns + column + offset[1];
+                }
+            }
+            knightJumps[square] = java.util.Arrays.copyOf(jumps, count);
+        }
+        //rays from the neighbour tables, so the bounds are only checked above
+        for (int direction = 0; direction < DIRECTIONS; direction++){
+            for (int square = 0; square < size; square++){
+                int length = 0;
+                for (int s = neighbor(square, direction); s >= 0; s = neighbor(s, direction)){
+                    length++;
+                }
+                int[] ray = new int[length];
+                int i = 0;
+                for (int s = neighbor(square, direction); s >= 0; s = neighbor(s, direction)){
+                    ray[i++] = s;
+                }
+                rays[direction][square] = ray;
+            }
+        }
+    }
+
+    //the shared geometry for the size
+    public static BoardGeometry of(int rows, int columns){
+        if (rows < 1 || columns < 1){
+            throw new BoardException("Error creating board: there must be at least 1 row and 1 column");
+        }
+        return GEOMETRIES.computeIfAbsent(rows << 16 | columns, key -> new BoardGeometry(rows, columns));
+    }
+
+    public int getRows(){
+        return rows;
+    }
+
+    public int getColumns(){
+        return columns;
+    }
+
+    public int getSize(){
+        return size;
+    }
+
+    public boolean contains(int row, int column){
+        return row >= 0 && row < rows && column >= 0 && column < columns;
+    }
+
+    public int square(int row, int column){
+        return row * columns + column;
+    }
+
+    public int row(int square){
+        return square / columns;
+    }
+
+    public int column(int square){
+        return square % columns;
+    }
+
+    //one Position per square, shared: they must not be changed
+    public Position position(int square){
+        return positions[square];
+    }
+
+    public int square(Position position){
+        return position.getRow() * columns + position.getColumn();
+    }
+
+    //the next square in the direction, -1 off the board
+    public int neighbor(int square, int direction){
+        return neighbors[square * DIRECTIONS + direction];
+    }
+
+    //the squares from the square's neighbour in the direction up to the edge, nearest first. Shared array,
+    //must not be changed
+    public int[] ray(int square, int direction){
+        return rays[direction][square];
+    }
+
+    //shared array, must not be changed
+    public int[] knightJumps(int square){
+        return knightJumps[square];
+    }
+
+    public static int opposite(int direction){
+        return (direction + 4) & 7;
+    }
+
+    //the label printed for a column ('a' for the first) and for a row (the bottom row is 1)
+    public char columnName(int column){
+        return (char) ('a' + column);
+    }
+
+    public int rowName(int row){
+        return rows - row;
+    }
+
+    public String squareName(int square){
+        return "" + columnName(column(square)) + rowName(row(square));
+    }
+
+    //the square of a label like "e4", -1 if it is not on the board
+    public int parseSquare(String name){
+        if (name.length() < 2){
+            return -1;
+        }
+        int column = name.charAt(0) - 'a';
+        int rowName;
+        try {
+            rowName = Integer.parseInt(name.substring(1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        int row = rows - rowName;
+        return contains(row, column) ? square(row, column) : -1;
+    }
+
+    @Override
+    public String toString(){
+        return rows + "x" + columns;
+    }
+}
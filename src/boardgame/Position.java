@@ -3,17 +3,25 @@ package boardgame;
 public class Position {
     private int row;
     private int column;
+    private final boolean shared; //as posicoes da BoardGeometry sao usadas por todos os tabuleiros e nao podem mudar
 
     public Position(int row, int column) {
+        this(row, column, false);
+    }
+
+    Position(int row, int column, boolean shared) {
         this.row = row;
         this.column = column;
+        this.shared = shared;
     }
 
     public int getRow() {
         return row;
     }
 
+    //the setters are kept for compatibility, they only work on positions created with the constructor
     public void setRow(int row) {
+        checkNotShared();
         this.row = row;
     }
 
@@ -22,14 +30,22 @@ public class Position {
     }
 
     public void setColumn(int column) {
+        checkNotShared();
         this.column = column;
     }
 
     public void setValues(int row, int column){
+        checkNotShared();
         this.row = row;
         this.column = column;
     }
 
+    private void checkNotShared(){
+        if (shared){
+            throw new BoardException("A shared position can't be changed");
+        }
+    }
+
     @Override
     public String toString(){
         return " " +
@@ -0,0 +1,118 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+//hands the events to another listener on its own thread, so the player never waits for it. The events go
+//through a bounded ring buffer: any number of matches (threads) can publish into it, one consumer thread takes
+//them out in batches. When the buffer is full the event is dropped and counted, the move path never blocks
+public class AsyncMatchListener implements MatchListener, AutoCloseable {
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+
+    private final MatchListener delegate;
+    private final MatchEvent[] events;
+    private final AtomicLongArray published; //sequence + 1 of the event in each slot once it can be read
+    private final int mask;
+    private final int maxBatch;
+    private static final long CLOSED = Long.MIN_VALUE; //set on tail by close(), no sequence can be claimed after it
+
+    private final AtomicLong tail = new AtomicLong(); //next sequence to claim, with the CLOSED bit
+    private volatile long head; //next sequence to consume, only written by the consumer
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final Thread consumer;
+
+    public AsyncMatchListener(MatchListener delegate) {
+        this(delegate, 1 << 13, 256);
+    }
+
+    //the capacity is rounded up to a power of two
+    public AsyncMatchListener(MatchListener delegate, int capacity, int maxBatch) {
+        if (capacity < 1 || maxBatch < 1){
+            throw new IllegalArgumentException("Capacity and batch size must be positive");
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        size = Math.max(size, 1);
+        this.delegate = delegate;
+        this.events = new MatchEvent[size];
+        this.published = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.maxBatch = maxBatch;
+        consumer = new Thread(this::drain, "match-events");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    @Override
+    public void onEvent(MatchEvent event){
+        long sequence;
+        do {
+            sequence = tail.get();
+            //once closed the compareAndSet can't succeed, so no slot is claimed that the consumer won't wait for
+            if ((sequence & CLOSED) != 0 || sequence - head >= events.length){
+                dropped.increment();
+                return;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+        int slot = (int) sequence & mask;
+        events[slot] = event;
+        published.set(slot, sequence + 1); //the volatile write makes the event visible to the consumer
+    }
+
+    private void drain(){
+        List<MatchEvent> batch = new ArrayList<>(maxBatch);
+        long next = head;
+        while (true){
+            //read before draining: when closed, tail is the final end and every slot before it will be published
+            long end = tail.get();
+            while (batch.size() < maxBatch && published.get((int) next & mask) == next + 1){
+                int slot = (int) next & mask;
+                batch.add(events[slot]);
+                events[slot] = null;
+                next++;
+            }
+            if (!batch.isEmpty()){
+                head = next; //frees the slots before the listener runs
+                try {
+                    delegate.onEvents(batch);
+                } catch (RuntimeException e) {
+                    System.err.println("Match listener failed: " + e);
+                }
+                delivered.add(batch.size());
+                batch.clear();
+            }else if ((end & CLOSED) != 0 && next == (end & ~CLOSED)){
+                return;
+            }else{
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    //events lost because the buffer was full or the listener was already closed
+    public long getDropped(){
+        return dropped.sum();
+    }
+
+    public long getDelivered(){
+        return delivered.sum();
+    }
+
+    //delivers the events already published and stops the consumer thread; later events are dropped
+    @Override
+    public void close(){
+        long sequence;
+        do {
+            sequence = tail.get();
+        } while ((sequence & CLOSED) == 0 && !tail.compareAndSet(sequence, sequence | CLOSED));
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
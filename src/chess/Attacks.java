@@ -0,0 +1,201 @@
+package chess;
+
+import boardgame.BoardGeometry;
+
+import static boardgame.BoardGeometry.*;
+
+//the tables are filled by walking the neighbour and ray tables of the 8x8 geometry
+public final class Attacks {
+    private static final BoardGeometry GEOMETRY = BoardGeometry.STANDARD;
+
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    private static final long[][] PAWN = new long[2][64];
+
+    private static final int[] ROOK_DIRECTIONS = {NORTH, SOUTH, WEST, EAST};
+    private static final int[] BISHOP_DIRECTIONS = {NORTH_WEST, NORTH_EAST, SOUTH_WEST, SOUTH_EAST};
+    private static final int[] ALL_DIRECTIONS = {NORTH, NORTH_EAST, EAST, SOUTH_EAST, SOUTH, SOUTH_WEST, WEST, NORTH_WEST};
+
+    private static final long[] ROOK_MASK = new long[64];
+    //magics for this square numbering (row 0 = rank 8), found offline by random search
+    private static final long[] ROOK_MAGIC = {
+            0x1080004008801020L, 0x0840092002C03000L, 0x1900200010400900L, 0x0880100008000480L,
+            0x4200100420080200L, 0x8100020100080400L, 0x0200040110886200L, 0x0200008040220411L,
+            0x0404800084400220L, 0x0000401000402000L, 0x0086001081220440L, 0x0408800800100280L,
+            0x000A001201040820L, 0x8848800200840080L, 0x4001000100040200L, 0x0442000102105084L,
+            0x9080010020804100L, 0x0040404000201009L, 0x0000808010002009L, 0x2200090021D00100L,
+            0x0008008008040080L, 0x0004004002010040L, 0x0011040008015042L, 0x00000A0001768104L,
+            0x0000800080204009L, 0x2010004140002001L, 0x9800200280100080L, 0x1000100080080080L,
+            0x0050500500080100L, 0x0000020080040080L, 0x0C10010400420810L, 0x1040008200005104L,
+            0x01808240088004A0L, 0x0882804004802000L, 0x0880402001001100L, 0x2000210409001000L,
+            0x2000480131001500L, 0x0000800400800200L, 0x000002380C001003L, 0x4600084882000431L,
+            0x0080002000504000L, 0x0300500020004002L, 0x0040408200220011L, 0x0010040008004040L,
+            0x0000080004008080L, 0x0010040002008080L, 0x2012004881020004L, 0x8300842444820011L,
+            0x0088403882010200L, 0x0820400080210100L, 0x0110910040A00300L, 0x0801100280080480L,
+            0x0242009008200600L, 0x1002000489500200L, 0x0040800200010080L, 0x0091800041000080L,
+            0x0000209300488001L, 0x04C1002414824001L, 0x020020000B001041L, 0x7000100004200901L,
+            0x8002002004100802L, 0x30010002084C0007L, 0x0888221800813004L, 0x4000002840840112L
+    };
+    private static final int[] ROOK_SHIFT = new int[64];
+    private static final long[][] ROOK_TABLE = new long[64][];
+
+    private static final long[] BISHOP_MASK = new long[64];
+    private static final long[] BISHOP_MAGIC = {
+            0x20C0090901061081L, 0x0024040094030104L, 0x8210810200290200L, 0x0011040484620000L,
+            0x0081104002221000L, 0x0009012011001350L, 0x0081010802400380L, 0x0000420210010408L,
+            0x0008105002280050L, 0x0001028484040044L, 0x2A00880810408804L, 0x7020022282000100L,
+            0x0084040420100A50L, 0x000401010840E000L, 0x2020020210420888L, 0x0008084202012010L,
+            0x2010400810018800L, 0x0445122008020840L, 0x0804100808002008L, 0x0008002104110100L,
+            0x0061005820080800L, 0x2001000200820100L, 0x480C210084010800L, 0x3004442500480420L,
+            0x1010102240048100L, 0x00182009084220A3L, 0x8803090A10004205L, 0x0208080040202020L,
+            0x000C044084010040L, 0x00A1010002004106L, 0x6008210020640202L, 0x1600902112860801L,
+            0x00042008C1220200L, 0x010C042002440140L, 0x5022080200040820L, 0x0402004042940100L,
+            0x0860108400008020L, 0x000C080022021000L, 0x0264080652822100L, 0x4005031221010401L,
+            0x0004502410008400L, 0x000500B010A20400L, 0x0415094050080800L, 0x080000201800A104L,
+            0x4022A80304000110L, 0x4012140802028020L, 0x40200104010100A0L, 0x12810806008B0C41L,
+            0x0020441008080000L, 0x2002120084045420L, 0x0704020062080002L, 0x0000001084040001L,
+            0x0322200891240200L, 0xF040200210024800L, 0x0140824832008042L, 0x000210020A004602L,
+            0x0083042805141020L, 0x002C12009A011000L, 0x0041A00044140400L, 0x00004004020A0202L,
+            0x0000140010020210L, 0x2864160811012200L, 0x2060080841082A17L, 0xA010041108003100L
+    };
+    private static final int[] BISHOP_SHIFT = new int[64];
+    private static final long[][] BISHOP_TABLE = new long[64][];
+
+    //squares strictly between two aligned squares, and the full line through them
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    static {
+        for (int square = 0; square < 64; square++){
+            for (int jump : GEOMETRY.knightJumps(square)){
+                KNIGHT[square] |= 1L << jump;
+            }
+            KING[square] = steps(square, ALL_DIRECTIONS);
+            //yellow pawns move up the board (towards row 0), red pawns move down
+            PAWN[Color.YELLOW.ordinal()][square] = steps(square, new int[]{NORTH_WEST, NORTH_EAST});
+            PAWN[Color.RED.ordinal()][square] = steps(square, new int[]{SOUTH_WEST, SOUTH_EAST});
+
+            initMagic(square, ROOK_DIRECTIONS, ROOK_MASK, ROOK_MAGIC, ROOK_SHIFT, ROOK_TABLE);
+            initMagic(square, BISHOP_DIRECTIONS, BISHOP_MASK, BISHOP_MAGIC, BISHOP_SHIFT, BISHOP_TABLE);
+        }
+        initLines(ROOK_DIRECTIONS);
+        initLines(BISHOP_DIRECTIONS);
+    }
+
+    private Attacks() {
+    }
+
+    public static long knightAttacks(int square){
+        return KNIGHT[square];
+    }
+
+    public static long kingAttacks(int square){
+        return KING[square];
+    }
+
+    public static long pawnAttacks(Color color, int square){
+        return PAWN[color.ordinal()][square];
+    }
+
+    public static long rookAttacks(int square, long occupancy){
+        return ROOK_TABLE[square][(int) (((occupancy & ROOK_MASK[square]) * ROOK_MAGIC[square]) >>> ROOK_SHIFT[square])];
+    }
+
+    public static long bishopAttacks(int square, long occupancy){
+        return BISHOP_TABLE[square][(int) (((occupancy & BISHOP_MASK[square]) * BISHOP_MAGIC[square]) >>> BISHOP_SHIFT[square])];
+    }
+
+    public static long queenAttacks(int square, long occupancy){
+        return rookAttacks(square, occupancy) | bishopAttacks(square, occupancy);
+    }
+
+    public static long between(int from, int to){
+        return BETWEEN[from][to];
+    }
+
+    public static long line(int from, int to){
+        return LINE[from][to];
+    }
+
+    private static void initLines(int[] directions){
+        for (int from = 0; from < 64; from++){
+            for (int direction : directions){
+                long ray = slidingAttacks(from, 0L, new int[]{direction});
+                long backwards = slidingAttacks(from, 0L, new int[]{opposite(direction)});
+                long between = 0L;
+                for (int to : GEOMETRY.ray(from, direction)){
+                    BETWEEN[from][to] = between;
+                    LINE[from][to] = ray | backwards | 1L << from;
+                    between |= 1L << to;
+                }
+            }
+        }
+    }
+
+    private static long steps(int square, int[] directions){
+        long mask = 0L;
+        for (int direction : directions){
+            int to = GEOMETRY.neighbor(square, direction);
+            if (to >= 0){
+                mask |= 1L << to;
+            }
+        }
+        return mask;
+    }
+
+    //slow ray walk, only used to fill the lookup tables
+    private static long slidingAttacks(int square, long occupancy, int[] directions){
+        long mask = 0L;
+        for (int direction : directions){
+            for (int to : GEOMETRY.ray(square, direction)){
+                long bit = 1L << to;
+                mask |= bit;
+                if ((occupancy & bit) != 0){
+                    break;
+                }
+            }
+        }
+        return mask;
+    }
+
+    //relevant occupancy: the ray squares minus the last one on each edge
+    private static long relevantMask(int square, int[] directions){
+        long mask = 0L;
+        for (int direction : directions){
+            int[] ray = GEOMETRY.ray(square, direction);
+            for (int i = 0; i < ray.length - 1; i++){
+                mask |= 1L << ray[i];
+            }
+        }
+        return mask;
+    }
+
+    private static void initMagic(int square, int[] directions, long[] masks, long[] magics, int[] shifts, long[][] tables){
+        long mask = relevantMask(square, directions);
+        int bits = Long.bitCount(mask);
+        int size = 1 << bits;
+
+        long[] occupancies = new long[size];
+        long[] attacks = new long[size];
+        long subset = 0L;
+        for (int i = 0; i < size; i++){
+            //carry-rippler: enumerates every subset of the mask
+            occupancies[i] = subset;
+            attacks[i] = slidingAttacks(square, subset, directions);
+            subset = (subset - mask) & mask;
+        }
+
+        long[] table = new long[size];
+        long magic = magics[square];
+        for (int i = 0; i < size; i++){
+            int index = (int) ((occupancies[i] * magic) >>> (64 - bits));
+            if (table[index] != 0 && table[index] != attacks[i]){
+                throw new IllegalStateException("Bad magic number for square " + square);
+            }
+            table[index] = attacks[i];
+        }
+        masks[square] = mask;
+        shifts[square] = 64 - bits;
+        tables[square] = table;
+    }
+}
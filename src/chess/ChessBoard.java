@@ -0,0 +1,173 @@
+package chess;
+
+import boardgame.Board;
+import boardgame.BoardException;
+import boardgame.BoardGeometry;
+import boardgame.Piece;
+import boardgame.Position;
+
+//the bitboards are kept next to the Piece[][] grid of Board, not instead of it: the grid and the piece objects
+//are what getPieces(), the UI and the boardgame layer work with. So a board takes more memory than before
+//(about 200 bytes more per match), the gain is in time: moves, attacks and hashing read the longs
+public class ChessBoard extends Board {
+    //one long per color and piece type, one bit per square (square = row * 8 + column)
+    private final long[][] bitboards = new long[2][6];
+    private final long[] occupancy = new long[2];
+    private long allPieces;
+    private long zobristKey; //piece part of the position hash, xored in and out as pieces move
+    private long pawnKey; //the same for the pawns alone, for the pawn structure cache
+    //material and piece-square sums (yellow minus red) and the game phase, kept the same way
+    private int middlegameScore;
+    private int endgameScore;
+    private int phase;
+
+    //the bitboards need exactly 64 squares
+    public static final BoardGeometry GEOMETRY = BoardGeometry.STANDARD;
+
+    public ChessBoard() {
+        super(GEOMETRY);
+    }
+
+    //shared positions, one per square, so hot paths don't allocate Position objects
+    public static Position position(int square){
+        return GEOMETRY.position(square);
+    }
+
+    public static Position position(int row, int column){
+        return GEOMETRY.position(row * 8 + column);
+    }
+
+    public static int square(Position position){
+        return position.getRow() * 8 + position.getColumn();
+    }
+
+    @Override
+    public void placePiece(Piece piece, Position position){
+        super.placePiece(piece, position);
+        ChessPiece p = (ChessPiece) piece;
+        long bit = 1L << square(position);
+        bitboards[p.getColor().ordinal()][p.getType().ordinal()] |= bit;
+        occupancy[p.getColor().ordinal()] |= bit;
+        allPieces |= bit;
+        update(p, square(position));
+        middlegameScore += PieceSquareTables.middlegame(p.getColor(), p.getType(), square(position));
+        endgameScore += PieceSquareTables.endgame(p.getColor(), p.getType(), square(position));
+        phase += PieceSquareTables.PHASE[p.getType().ordinal()];
+    }
+
+    @Override
+    public Piece removePiece(Position position){
+        Piece piece = super.removePiece(position);
+        if (piece != null){
+            ChessPiece p = (ChessPiece) piece;
+            long bit = ~(1L << square(position));
+            bitboards[p.getColor().ordinal()][p.getType().ordinal()] &= bit;
+            occupancy[p.getColor().ordinal()] &= bit;
+            allPieces &= bit;
+            update(p, square(position));
+            middlegameScore -= PieceSquareTables.middlegame(p.getColor(), p.getType(), square(position));
+            endgameScore -= PieceSquareTables.endgame(p.getColor(), p.getType(), square(position));
+            phase -= PieceSquareTables.PHASE[p.getType().ordinal()];
+        }
+        return piece;
+    }
+
+    private void update(ChessPiece p, int square){
+        long key = Zobrist.piece(p.getColor(), p.getType(), square);
+        zobristKey ^= key;
+        if (p.getType() == PieceType.PAWN){
+            pawnKey ^= key;
+        }
+    }
+
+    @Override
+    public boolean thereIsAPiece(Position position){
+        if (!positionExists(position)){
+            throw new BoardException("Position not on the board");
+        }
+        return (allPieces & 1L << square(position)) != 0;
+    }
+
+    public ChessPiece piece(int square){
+        return (ChessPiece) piece(square >>> 3, square & 7);
+    }
+
+    public boolean isOccupied(int square){
+        return (allPieces & 1L << square) != 0;
+    }
+
+    public long getPieces(Color color, PieceType type){
+        return bitboards[color.ordinal()][type.ordinal()];
+    }
+
+    public long getOccupancy(Color color){
+        return occupancy[color.ordinal()];
+    }
+
+    public long getOccupancy(){
+        return allPieces;
+    }
+
+    public long getZobristKey(){
+        return zobristKey;
+    }
+
+    public long getPawnKey(){
+        return pawnKey;
+    }
+
+    public int getMiddlegameScore(){
+        return middlegameScore;
+    }
+
+    public int getEndgameScore(){
+        return endgameScore;
+    }
+
+    public int getPhase(){
+        return phase;
+    }
+
+    public int kingSquare(Color color){
+        return Long.numberOfTrailingZeros(bitboards[color.ordinal()][PieceType.KING.ordinal()]);
+    }
+
+    //reverse lookup: the attacker's pieces that would be hit by each piece type standing on the square
+    public long attackersTo(int square, Color attacker, long occupancy){
+        long[] pieces = bitboards[attacker.ordinal()];
+        Color defender = (attacker == Color.YELLOW) ? Color.RED : Color.YELLOW;
+        long queens = pieces[PieceType.QUEEN.ordinal()];
+        return (Attacks.pawnAttacks(defender, square) & pieces[PieceType.PAWN.ordinal()])
+                | (Attacks.knightAttacks(square) & pieces[PieceType.KNIGHT.ordinal()])
+                | (Attacks.kingAttacks(square) & pieces[PieceType.KING.ordinal()])
+                | (Attacks.bishopAttacks(square, occupancy) & (pieces[PieceType.BISHOP.ordinal()] | queens))
+                | (Attacks.rookAttacks(square, occupancy) & (pieces[PieceType.ROOK.ordinal()] | queens));
+    }
+
+    public boolean isAttacked(int square, Color attacker){
+        return attackersTo(square, attacker, allPieces) != 0;
+    }
+
+    public boolean isAttacked(int square, Color attacker, long occupancy){
+        return attackersTo(square, attacker, occupancy) != 0;
+    }
+
+    //pieces of the given color that are the only blocker between their king and an enemy slider
+    public long pinnedPieces(Color color){
+        int king = kingSquare(color);
+        long[] enemy = bitboards[1 - color.ordinal()];
+        long queens = enemy[PieceType.QUEEN.ordinal()];
+        long snipers = (Attacks.rookAttacks(king, 0L) & (enemy[PieceType.ROOK.ordinal()] | queens))
+                | (Attacks.bishopAttacks(king, 0L) & (enemy[PieceType.BISHOP.ordinal()] | queens));
+        long pinned = 0L;
+        while (snipers != 0){
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Attacks.between(king, sniper) & allPieces;
+            if (Long.bitCount(blockers) == 1){
+                pinned |= blockers & occupancy[color.ordinal()];
+            }
+        }
+        return pinned;
+    }
+}
@@ -1,30 +1,123 @@
 package chess;
 
-import boardgame.Board;
 import boardgame.Piece;
 import boardgame.Position;
 import chess.pieces.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class ChessMatch {
+    public static final int MAX_MOVES = 256;
+
+    private static final long DARK_SQUARES = 0x55AA55AA55AA55AAL;
+    //castling rights kept by a move from or to each square: moving the king or a rook, or capturing a rook
+    //on its corner, clears them
+    private static final int[] CASTLING_KEPT = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_KEPT, 15);
+        CASTLING_KEPT[60] = 12;
+        CASTLING_KEPT[63] = 14;
+        CASTLING_KEPT[56] = 13;
+        CASTLING_KEPT[4] = 3;
+        CASTLING_KEPT[7] = 11;
+        CASTLING_KEPT[0] = 7;
+    }
+
     private int turn;
     private Color currentPlayer;
-    private Board board;
+    private ChessBoard board;
     private boolean check; //boolean comeca sempre com false
     private boolean checkMate;
-    private List<Piece> piecesOnTheBoard = new ArrayList<>();
-    private List<Piece> capturedPieces = new ArrayList<>();
+    private final PieceList piecesOnTheBoard = new PieceList(); //por cor e tipo, add e remove em O(1)
+    private List<Piece> capturedPieces = new ArrayList<>(); //taken back in the reverse order, like a stack
     private ChessPiece enPassantVulnerable; //padrao valor null
     private ChessPiece promoted;
+    private GameState gameState = GameState.ONGOING;
+    private int halfmoveClock;
+    private int rights; //bits 0-3 castling rights (as in getCastlingRights), bits 4-10 en passant square + 1
+    private long stateKey; //side to move, castling and en passant part of the zobrist key
+    private long[] positionKeys = new long[128]; //uma chave por posicao ja jogada, para a tripla repeticao
+    private int positionCount;
+    private PlyState[] plies = new PlyState[64];
+    private int plyCount;
+    private final int[] moveBuffer = new int[MAX_MOVES];
+    private MatchListener[] listeners = new MatchListener[0];
+    private int[] redoMoves = new int[16]; //moves taken back, the next one to redo last
+    private int redoCount;
 
     public ChessMatch() {
-        board = new Board(8, 8);
-        turn = 1;
-        currentPlayer = Color.YELLOW;
+        this(Color.YELLOW, 1);
         initialSetup();
+        rights = scanCastlingRights();
+        recordPosition();
+    }
+
+    //empty board, the pieces are placed by Fen
+    ChessMatch(Color currentPlayer, int turn) {
+        board = new ChessBoard();
+        this.turn = turn;
+        this.currentPlayer = currentPlayer;
+    }
+
+    //independent copy of the current position with its own board and pieces, e.g. for another search thread.
+    //the move history is not copied, so the copy can't undo past this point
+    private ChessMatch(ChessMatch other) {
+        board = new ChessBoard();
+        turn = other.turn;
+        currentPlayer = other.currentPlayer;
+        check = other.check;
+        checkMate = other.checkMate;
+        gameState = other.gameState;
+        halfmoveClock = other.halfmoveClock;
+        rights = other.rights;
+        stateKey = other.stateKey;
+        positionKeys = Arrays.copyOf(other.positionKeys, other.positionKeys.length);
+        positionCount = other.positionCount;
+        capturedPieces.addAll(other.capturedPieces);
+
+        long occupied = other.board.getOccupancy();
+        while (occupied != 0){
+            int square = Long.numberOfTrailingZeros(occupied);
+            occupied &= occupied - 1;
+            ChessPiece original = other.board.piece(square);
+            ChessPiece piece = newPiece(original.getType(), original.getColor());
+            piece.setMoveCount(original.getMoveCount());
+            board.placePiece(piece, ChessBoard.position(square));
+            piecesOnTheBoard.add(piece);
+            if (original == other.enPassantVulnerable){
+                enPassantVulnerable = piece;
+            }
+            if (original == other.promoted){
+                promoted = piece;
+            }
+        }
+    }
+
+    //the listeners stay with this match, a copy starts without any
+    public ChessMatch copy(){
+        return new ChessMatch(this);
+    }
+
+    //the events are sent by performChessMove, performMove and replacePromotedPiece; doMove, used by the search,
+    //sends nothing
+    public void addListener(MatchListener listener){
+        listeners = Arrays.copyOf(listeners, listeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+    }
+
+    public void removeListener(MatchListener listener){
+        for (int i = 0; i < listeners.length; i++){
+            if (listeners[i] == listener){
+                MatchListener[] rest = new MatchListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, rest, 0, i);
+                System.arraycopy(listeners, i + 1, rest, i, rest.length - i);
+                listeners = rest;
+                return;
+            }
+        }
     }
 
     public int getTurn() {
@@ -41,6 +134,84 @@ public class ChessMatch {
     public boolean getCheckMate(){
         return checkMate;
     }
+
+    public GameState getGameState(){
+        return gameState;
+    }
+
+    public Color getWinner(){
+        return (gameState == GameState.CHECKMATE) ? opponent(currentPlayer) : null;
+    }
+
+    public int getHalfmoveClock(){
+        return halfmoveClock;
+    }
+
+    public long getZobristKey(){
+        return board.getZobristKey() ^ stateKey;
+    }
+
+    public ChessPiece getPiece(int square){
+        return board.piece(square);
+    }
+
+    public long getBitboard(Color color, PieceType type){
+        return board.getPieces(color, type);
+    }
+
+    //zobrist key of the pawns only: positions with the same pawns share their pawn structure
+    public long getPawnKey(){
+        return board.getPawnKey();
+    }
+
+    //material plus piece-square bonus, yellow minus red, for the middlegame and for the endgame
+    public int getMiddlegameScore(){
+        return board.getMiddlegameScore();
+    }
+
+    public int getEndgameScore(){
+        return board.getEndgameScore();
+    }
+
+    //PieceSquareTables.MAX_PHASE with all the pieces, 0 with only kings and pawns (promotions can go above)
+    public int getPhase(){
+        return board.getPhase();
+    }
+
+    public int getPieceCount(Color color, PieceType type){
+        return piecesOnTheBoard.count(color, type);
+    }
+
+    //index from 0 to getPieceCount - 1; the order changes when pieces are captured
+    public ChessPiece getPiece(Color color, PieceType type, int index){
+        return piecesOnTheBoard.get(color, type, index);
+    }
+
+    public long getOccupancy(Color color){
+        return board.getOccupancy(color);
+    }
+
+    public long getOccupancy(){
+        return board.getOccupancy();
+    }
+
+    //the current position already happened before with the same player to move
+    public boolean isRepetition(){
+        return repetitions() > 1;
+    }
+
+    //moves played on this match since it was created (a copy starts with an empty history)
+    public int getPlyCount(){
+        return plyCount;
+    }
+
+    public int getMove(int ply){
+        if (ply < 0 || ply >= plyCount){
+            throw new IndexOutOfBoundsException("No move at ply " + ply);
+        }
+        return plies[ply].move;
+    }
+
     public ChessPiece getEnPassantVulnerable(){
         return enPassantVulnerable;
     }
@@ -49,6 +220,11 @@ public class ChessMatch {
         return promoted;
     }
 
+    //immutable copy of the position that other threads can read while the match goes on
+    public PositionSnapshot snapshot(){
+        return new PositionSnapshot(this);
+    }
+
     public ChessPiece[][] getPieces(){
         ChessPiece[][] mat = new ChessPiece[board.getRows()][board.getColumns()];
         for (int i = 0; i < board.getRows(); i++){
@@ -64,7 +240,139 @@ public class ChessMatch {
     public boolean[][] possibleMoves(ChessPosition sourcePosition){
         Position position = sourcePosition.toPosition(); //upcasting to Position
         validateSourcePosition(position);
-        return board.piece(position).possibleMoves(); //acho que o metodo vai vim de uma que tem o possibleMoves implementado
+        boolean[][] mat = new boolean[board.getRows()][board.getColumns()];
+        int count = generateMoves(sourcePosition, moveBuffer);
+        for (int i = 0; i < count; i++){
+            int target = Move.to(moveBuffer[i]);
+            mat[target >>> 3][target & 7] = true;
+        }
+        return mat;
+    }
+
+    //writes the legal moves of the current player into the buffer and returns how many were written
+    public int generateMoves(int[] moves){
+        return generateMoves(currentPlayer, board.getOccupancy(currentPlayer), moves);
+    }
+
+    public int generateMoves(ChessPosition sourcePosition, int[] moves){
+        long source = 1L << ChessBoard.square(sourcePosition.toPosition());
+        return generateMoves(currentPlayer, board.getOccupancy(currentPlayer) & source, moves);
+    }
+
+    //only the moves of the current player's pieces on the squares set in the mask
+    public int generateMoves(long sources, int[] moves){
+        return generateMoves(currentPlayer, board.getOccupancy(currentPlayer) & sources, moves);
+    }
+
+    //captures, en passant and promotions only, used by the quiescence search
+    public int generateCaptures(int[] moves){
+        return generateMoves(currentPlayer, board.getOccupancy(currentPlayer), moves, true);
+    }
+
+    private int generateMoves(Color color, long sources, int[] moves){
+        return generateMoves(color, sources, moves, false);
+    }
+
+    //with a null buffer it stops at the first legal move found and returns 1
+    private int generateMoves(Color color, long sources, int[] moves, boolean capturesOnly){
+        int count = 0;
+        long captureTargets = capturesOnly ? board.getOccupancy(opponent(color)) : ~0L;
+        int king = board.kingSquare(color);
+        long checkers = board.attackersTo(king, opponent(color), board.getOccupancy());
+        long pinned = board.pinnedPieces(color);
+        //when in check, non king moves must capture the checker or block the line to the king
+        long evasionTargets = ~0L;
+        long pawnEvasionTargets = ~0L;
+        if (checkers != 0){
+            if (Long.bitCount(checkers) > 1){
+                sources &= 1L << king; //double check, only the king can move
+            }
+            int checker = Long.numberOfTrailingZeros(checkers);
+            evasionTargets = checkers | Attacks.between(king, checker);
+            pawnEvasionTargets = evasionTargets;
+            //a pawn that just moved two squares can also be taken en passant, on the square behind it. Only for pawns:
+            //any other piece going there leaves the checker on the board
+            if (enPassantVulnerable != null && enPassantVulnerable.getSquare() == checker){
+                pawnEvasionTargets |= 1L << (checker + ((color == Color.YELLOW) ? -8 : 8));
+            }
+        }
+
+        while (sources != 0){
+            int from = Long.numberOfTrailingZeros(sources);
+            sources &= sources - 1;
+            ChessPiece p = board.piece(from);
+            long targets = p.possibleMovesBitboard();
+            boolean pawn = p instanceof Pawn;
+            if (from != king){
+                targets &= pawn ? pawnEvasionTargets : evasionTargets;
+            }
+            if (!pawn){
+                targets &= captureTargets;
+            }
+            while (targets != 0){
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                int flags = moveFlags(p, from, to);
+                if (capturesOnly && pawn && (flags & (Move.CAPTURE | Move.EN_PASSANT)) == 0 && to >= 8 && to < 56){
+                    continue;
+                }
+                if (!isLegal(color, from, to, flags, king, checkers, pinned)){
+                    continue;
+                }
+                if (moves == null){
+                    return 1;
+                }
+                if (pawn && (to < 8 || to >= 56)){
+                    moves[count++] = Move.encode(from, to, flags, PieceType.QUEEN);
+                    moves[count++] = Move.encode(from, to, flags, PieceType.ROOK);
+                    moves[count++] = Move.encode(from, to, flags, PieceType.BISHOP);
+                    moves[count++] = Move.encode(from, to, flags, PieceType.KNIGHT);
+                }else{
+                    moves[count++] = Move.encode(from, to, flags, null);
+                }
+            }
+        }
+        return count;
+    }
+
+    private boolean isLegal(Color color, int from, int to, int flags, int king, long checkers, long pinned){
+        Color opponent = opponent(color);
+        if (from == king){
+            if ((flags & Move.CASTLING) != 0){
+                return true; //King only offers it when the squares it stands on and crosses are safe
+            }
+            //the king itself must not block the ray of a slider that is checking it
+            return !board.isAttacked(to, opponent, board.getOccupancy() & ~(1L << from));
+        }
+        if ((flags & Move.EN_PASSANT) != 0){
+            //removes two pieces from the same row, the pin tables don't cover it
+            return leavesKingSafe(color, from, to);
+        }
+        return (pinned & 1L << from) == 0 || (Attacks.line(king, from) & 1L << to) != 0;
+    }
+
+    private int moveFlags(ChessPiece p, int from, int to){
+        int flags = board.isOccupied(to) ? Move.CAPTURE : 0;
+        if (p instanceof Pawn){
+            if ((from & 7) != (to & 7) && flags == 0){
+                flags |= Move.EN_PASSANT;
+            }else if (to == from + 16 || to == from - 16){
+                flags |= Move.DOUBLE_PUSH;
+            }
+        }else if (p instanceof King && (to == from + 2 || to == from - 2)){
+            flags |= Move.CASTLING;
+        }
+        return flags;
+    }
+
+    //only used for en passant captures
+    private boolean leavesKingSafe(Color color, int from, int to){
+        Position source = ChessBoard.position(from);
+        Position target = ChessBoard.position(to);
+        Piece capturedPiece = makeMove(source, target);
+        boolean testCheck = testCheck(color);
+        undoMove(source, target, capturedPiece, true);
+        return !testCheck;
     }
 
     public ChessPiece performChessMove(ChessPosition sourcePosition, ChessPosition targetPosition){
@@ -72,43 +380,195 @@ public class ChessMatch {
         Position target = targetPosition.toPosition(); //de ChessPosition passa a ser Position -> upCasting
         validateSourcePosition(source);
         validateTargetPosition(source, target);
-        Piece capturedPiece = makeMove(source, target);
 
-        if(testCheck(currentPlayer)){
-            undoMove(source, target, capturedPiece);
+        //the piece can go there, so if no legal move matches it would leave the king in check
+        int move = findMove(ChessBoard.square(source), ChessBoard.square(target), PieceType.QUEEN);
+        if (move == 0){
             throw new ChessException("You can't put yourself in check");
         }
+        doMove(move);
+        updateGameState();
+        redoCount = 0;
+        publishMove();
+        return (ChessPiece) plies[plyCount - 1].captured;
+    }
 
-        ChessPiece movedPiece = (ChessPiece)board.piece(target);
+    //plays a move produced by generateMoves and evaluates the game state afterwards
+    public void performMove(int move){
+        if (findMove(Move.from(move), Move.to(move), Move.promotion(move)) != move){
+            throw new ChessException("Illegal move " + Move.toString(move));
+        }
+        doMove(move);
+        updateGameState();
+        redoCount = 0;
+        publishMove();
+    }
 
-        //#specialmove promotion
-        promoted = null;
+    //takes back the last move, which redo() can play again until another move is performed. Every ply keeps
+    //what the move changed (captured piece, en passant pawn, promotion, clock, key, check and state), so
+    //nothing is recomputed
+    public int takeBack(){
+        if (plyCount == 0){
+            throw new ChessException("There is no move to take back");
+        }
+        int move = plies[plyCount - 1].move;
+        undoLastMove();
+        if (redoCount == redoMoves.length){
+            redoMoves = Arrays.copyOf(redoMoves, redoCount * 2);
+        }
+        redoMoves[redoCount++] = move;
+        return move;
+    }
+
+    public int redo(){
+        if (redoCount == 0){
+            throw new ChessException("There is no move to redo");
+        }
+        int move = redoMoves[redoCount - 1];
+        if (findMove(Move.from(move), Move.to(move), Move.promotion(move)) != move){
+            //the position was changed through doMove in the meantime
+            redoCount = 0;
+            throw new ChessException("The move to redo is no longer legal");
+        }
+        redoCount--;
+        doMove(move);
+        updateGameState();
+        publishMove();
+        return move;
+    }
+
+    public boolean canTakeBack(){
+        return plyCount > 0;
+    }
+
+    public boolean canRedo(){
+        return redoCount > 0;
+    }
+
+    //the events of the move just played
+    private void publishMove(){
+        if (listeners.length == 0){
+            return;
+        }
+        PlyState ply = plies[plyCount - 1];
+        int move = ply.move;
+        Color player = opponent(currentPlayer);
+        int moveTurn = turn - 1;
+        PieceType moved = (Move.promotion(move) != null) ? PieceType.PAWN : board.piece(Move.to(move)).getType();
+        publish(new MatchEvent(MatchEvent.Type.MOVE, moveTurn, player, move, moved, gameState));
+        if (ply.captured != null){
+            publish(new MatchEvent(MatchEvent.Type.CAPTURE, moveTurn, player, move, ((ChessPiece) ply.captured).getType(), gameState));
+        }
+        if (Move.isCastling(move)){
+            publish(new MatchEvent(MatchEvent.Type.CASTLING, moveTurn, player, move, null, gameState));
+        }
+        if (Move.promotion(move) != null){
+            publish(new MatchEvent(MatchEvent.Type.PROMOTION, moveTurn, player, move, Move.promotion(move), gameState));
+        }
+        publishState(move, player, moveTurn);
+    }
 
-        if (movedPiece instanceof Pawn){
-            if (movedPiece.getColor() == Color.YELLOW && target.getRow() == 0 || movedPiece.getColor() == Color.RED && target.getRow() == 7){
-                promoted = (ChessPiece) board.piece(target);
-                promoted = replacePromotedPiece("Q");
+    private void publishState(int move, Color player, int moveTurn){
+        if (check){
+            publish(new MatchEvent(MatchEvent.Type.CHECK, moveTurn, player, move, null, gameState));
+        }
+        if (gameState != GameState.ONGOING){
+            publish(new MatchEvent(MatchEvent.Type.GAME_END, moveTurn, player, move, null, gameState));
+        }
+    }
+
+    private void publish(MatchEvent event){
+        for (MatchListener listener : listeners){
+            listener.onEvent(event);
+        }
+    }
+
+    private int findMove(int from, int to, PieceType promotion){
+        int count = generateMoves(currentPlayer, board.getOccupancy(currentPlayer) & 1L << from, moveBuffer);
+        for (int i = 0; i < count; i++){
+            int move = moveBuffer[i];
+            if (Move.to(move) == to && (Move.promotion(move) == null || Move.promotion(move) == promotion)){
+                return move;
             }
         }
+        return 0;
+    }
 
-        check = (testCheck(opponent(currentPlayer))) ? true : false;
+    //fast path for search: the move must be legal, and the game state is not evaluated
+    public void doMove(int move){
+        if (plyCount == plies.length){
+            plies = Arrays.copyOf(plies, plyCount * 2);
+        }
+        if (plies[plyCount] == null){
+            plies[plyCount] = new PlyState();
+        }
+        PlyState ply = plies[plyCount++];
+        ply.move = move;
+        ply.enPassantVulnerable = enPassantVulnerable;
+        ply.promoted = promoted;
+        ply.halfmoveClock = halfmoveClock;
+        ply.rights = rights;
+        ply.stateKey = stateKey;
+        ply.check = check;
+        ply.gameState = gameState;
+
+        Position source = ChessBoard.position(Move.from(move));
+        Position target = ChessBoard.position(Move.to(move));
+        ChessPiece movedPiece = board.piece(Move.from(move));
+        ply.captured = makeMove(source, target);
 
-        if (testCheckMate(opponent(currentPlayer))){
-            checkMate = true;
-        }else{
-            nextTurn();
+        //#specialmove promotion
+        promoted = null;
+        ply.pawn = null;
+        PieceType promotion = Move.promotion(move);
+        if (promotion != null){
+            ply.pawn = movedPiece;
+            promoted = movedPiece;
+            promoted = promote(promotion);
         }
 
         // #specialmove en passant
-        if (movedPiece instanceof Pawn && (target.getRow() == source.getRow() - 2 || target.getRow() == source.getRow() + 2)){
-            enPassantVulnerable = movedPiece;
-        }else{
-            enPassantVulnerable = null;
-        }
+        enPassantVulnerable = Move.isDoublePush(move) ? movedPiece : null;
+        int enPassantSquare = Move.isDoublePush(move) ? (Move.from(move) + Move.to(move)) / 2 : -1;
+        rights = (rights & CASTLING_KEPT[Move.from(move)] & CASTLING_KEPT[Move.to(move)] & 15) | (enPassantSquare + 1) << 4;
 
+        halfmoveClock = (movedPiece instanceof Pawn || ply.captured != null) ? 0 : halfmoveClock + 1;
 
+        nextTurn();
+        recordPosition();
+        check = testCheck(currentPlayer);
+        gameState = GameState.ONGOING;
+        checkMate = false;
+    }
 
-        return (ChessPiece) capturedPiece;
+    public void undoLastMove(){
+        if (plyCount == 0){
+            throw new IllegalStateException("There is no move to undo");
+        }
+        PlyState ply = plies[--plyCount];
+        Position source = ChessBoard.position(Move.from(ply.move));
+        Position target = ChessBoard.position(Move.to(ply.move));
+
+        if (ply.pawn != null){
+            Piece p = board.removePiece(target);
+            piecesOnTheBoard.remove((ChessPiece) p);
+            board.placePiece(ply.pawn, target);
+            piecesOnTheBoard.add(ply.pawn);
+        }
+        enPassantVulnerable = ply.enPassantVulnerable;
+        undoMove(source, target, ply.captured, Move.isEnPassant(ply.move));
+
+        previousTurn();
+        positionCount--;
+        promoted = ply.promoted;
+        halfmoveClock = ply.halfmoveClock;
+        rights = ply.rights;
+        stateKey = ply.stateKey;
+        check = ply.check;
+        gameState = ply.gameState;
+        checkMate = gameState == GameState.CHECKMATE;
+        ply.captured = null;
+        ply.pawn = null;
     }
 
     public ChessPiece replacePromotedPiece(String type){
@@ -118,10 +578,32 @@ public class ChessMatch {
         if (!type.equals("B") && !type.equals("N") && !type.equals("R") && !type.equals("Q")){ //String e um tipo class nao primitivo
             return promoted;
         }
+        promoted = promote(promotionType(type));
+        PlyState ply = plies[plyCount - 1];
+        ply.move = Move.encode(Move.from(ply.move), Move.to(ply.move), Move.flags(ply.move), promoted.getType());
+        //the position after the move changed, so its key and the game state must be redone
+        positionCount--;
+        recordPosition();
+        updateGameState();
+        //the promotion is sent again with the piece chosen, along with the check and end it may bring
+        if (listeners.length > 0){
+            publish(new MatchEvent(MatchEvent.Type.PROMOTION, turn - 1, promoted.getColor(), ply.move, promoted.getType(), gameState));
+            publishState(ply.move, promoted.getColor(), turn - 1);
+        }
+        return promoted;
+    }
 
-        Position pos = promoted.getChessPosition().toPosition();
+    private PieceType promotionType(String type){
+        if (type.equals("B")) return PieceType.BISHOP;
+        if (type.equals("N")) return PieceType.KNIGHT;
+        if (type.equals("R")) return PieceType.ROOK;
+        return PieceType.QUEEN;
+    }
+
+    private ChessPiece promote(PieceType type){
+        Position pos = ChessBoard.position(promoted.getSquare());
         Piece p = board.removePiece(pos);
-        piecesOnTheBoard.remove(p);
+        piecesOnTheBoard.remove((ChessPiece) p);
 
         ChessPiece newPiece = newPiece(type, promoted.getColor());
         board.placePiece(newPiece, pos);
@@ -130,10 +612,12 @@ public class ChessMatch {
         return newPiece;
     }
 
-    private ChessPiece newPiece(String type, Color color){
-        if (type.equals("B")) return new Bishop(board, color);
-        if (type.equals("N")) return new Knight(board, color);
-        if (type.equals("Q")) return new Queen(board, color);
+    private ChessPiece newPiece(PieceType type, Color color){
+        if (type == PieceType.PAWN) return new Pawn(board, color, this);
+        if (type == PieceType.KING) return new King(board, color, this);
+        if (type == PieceType.BISHOP) return new Bishop(board, color);
+        if (type == PieceType.KNIGHT) return new Knight(board, color);
+        if (type == PieceType.QUEEN) return new Queen(board, color);
         return new Rook(board, color);
     }
 
@@ -145,14 +629,14 @@ public class ChessMatch {
         //o placePiece recebe um Piece entao e feito um upcasting naturalmente de Piece p
 
         if (capturedPiece != null){
-            piecesOnTheBoard.remove(capturedPiece);
+            piecesOnTheBoard.remove((ChessPiece) capturedPiece);
             capturedPieces.add(capturedPiece);
         }
 
         // #specialmove castling kingside rook
         if (p instanceof King && target.getColumn() == source.getColumn() + 2) {
-            Position sourceT = new Position(source.getRow(), source.getColumn() + 3);
-            Position targetT = new Position(source.getRow(), source.getColumn() + 1);
+            Position sourceT = ChessBoard.position(source.getRow(), source.getColumn() + 3);
+            Position targetT = ChessBoard.position(source.getRow(), source.getColumn() + 1);
             ChessPiece rook = (ChessPiece)board.removePiece(sourceT);
             board.placePiece(rook, targetT);
             rook.increaseMoveCount();
@@ -160,8 +644,8 @@ public class ChessMatch {
 
         // #specialmove castling queenside rook
         if (p instanceof King && target.getColumn() == source.getColumn() - 2) {
-            Position sourceT = new Position(source.getRow(), source.getColumn() - 4);
-            Position targetT = new Position(source.getRow(), source.getColumn() - 1);
+            Position sourceT = ChessBoard.position(source.getRow(), source.getColumn() - 4);
+            Position targetT = ChessBoard.position(source.getRow(), source.getColumn() - 1);
             ChessPiece rook = (ChessPiece)board.removePiece(sourceT);
             board.placePiece(rook, targetT);
             rook.increaseMoveCount();
@@ -170,36 +654,45 @@ public class ChessMatch {
         //specialmove en passant
         if (p instanceof Pawn){
             if(source.getColumn() != target.getColumn() && capturedPiece == null){
-                Position pawnPosition;
-                if (p.getColor() == Color.YELLOW){
-                    pawnPosition = new Position(target.getRow() + 1, target.getColumn());
-                }else{
-                    pawnPosition = new Position(target.getRow() - 1, target.getColumn());
-                }
-                capturedPiece = board.removePiece(pawnPosition);
+                capturedPiece = board.removePiece(enPassantPawnPosition(source, target));
                 capturedPieces.add(capturedPiece);
-                piecesOnTheBoard.remove(capturedPiece);
+                piecesOnTheBoard.remove((ChessPiece) capturedPiece);
             }
         }
 
         return capturedPiece;
     }
 
-    private void undoMove(Position source, Position target, Piece capturedPiece){
+    //undo works in reverse order, so the piece is almost always the last one and nothing is scanned
+    private void removeCaptured(Piece piece){
+        int last = capturedPieces.size() - 1;
+        if (last >= 0 && capturedPieces.get(last) == piece){
+            capturedPieces.remove(last);
+        }else{
+            capturedPieces.remove(piece);
+        }
+    }
+
+    //the pawn taken en passant stands on the row the capturing pawn leaves, in the column it moves to
+    private static Position enPassantPawnPosition(Position source, Position target){
+        return ChessBoard.position(source.getRow(), target.getColumn());
+    }
+
+    private void undoMove(Position source, Position target, Piece capturedPiece, boolean enPassant){
         ChessPiece p = (ChessPiece) board.removePiece(target);
         p.decreaseMoveCount();
         board.placePiece(p, source);
 
         if (capturedPiece != null){
             board.placePiece(capturedPiece, target);
-            capturedPieces.remove(capturedPiece);
-            piecesOnTheBoard.add(capturedPiece);
+            removeCaptured(capturedPiece);
+            piecesOnTheBoard.add((ChessPiece) capturedPiece);
         }
 
         // #specialmove castling kingside rook
         if (p instanceof King && target.getColumn() == source.getColumn() + 2) {
-            Position sourceT = new Position(source.getRow(), source.getColumn() + 3);
-            Position targetT = new Position(source.getRow(), source.getColumn() + 1);
+            Position sourceT = ChessBoard.position(source.getRow(), source.getColumn() + 3);
+            Position targetT = ChessBoard.position(source.getRow(), source.getColumn() + 1);
             ChessPiece rook = (ChessPiece)board.removePiece(targetT);
             board.placePiece(rook, sourceT);
             rook.decreaseMoveCount();
@@ -207,25 +700,17 @@ public class ChessMatch {
 
         // #specialmove castling queenside rook
         if (p instanceof King && target.getColumn() == source.getColumn() - 2) {
-            Position sourceT = new Position(source.getRow(), source.getColumn() - 4);
-            Position targetT = new Position(source.getRow(), source.getColumn() - 1);
+            Position sourceT = ChessBoard.position(source.getRow(), source.getColumn() - 4);
+            Position targetT = ChessBoard.position(source.getRow(), source.getColumn() - 1);
             ChessPiece rook = (ChessPiece)board.removePiece(targetT);
             board.placePiece(rook, sourceT);
             rook.decreaseMoveCount();
         }
 
         //specialmove en passant
-        if (p instanceof Pawn){
-            if(source.getColumn() != target.getColumn() && capturedPiece == enPassantVulnerable){
-                ChessPiece pawn = (ChessPiece) board.removePiece(target);
-                Position pawnPosition;
-                if (p.getColor() == Color.YELLOW){
-                    pawnPosition = new Position(3, target.getColumn());
-                }else{
-                    pawnPosition = new Position(4, target.getColumn());
-                }
-                board.placePiece(pawn, pawnPosition);
-            }
+        if (enPassant){
+            ChessPiece pawn = (ChessPiece) board.removePiece(target);
+            board.placePiece(pawn, enPassantPawnPosition(source, target));
         }
     }
 
@@ -254,66 +739,170 @@ public class ChessMatch {
         currentPlayer = (currentPlayer == Color.YELLOW) ? Color.RED : Color.YELLOW;
     }
 
+    private void previousTurn(){
+        turn--;
+        currentPlayer = (currentPlayer == Color.YELLOW) ? Color.RED : Color.YELLOW;
+    }
+
     private Color opponent(Color color){ //dado um cor devolve o oponente dessa cor
         return (color == Color.YELLOW) ? Color.RED : Color.YELLOW;
     }
 
-    private ChessPiece king(Color color){
-        List<Piece> list = piecesOnTheBoard.stream().filter(x -> ((ChessPiece)x).getColor() == color).collect(Collectors.toList());
-        for (Piece p : list){
-            if (p instanceof King){
-                return (ChessPiece) p;
-            }
-        }
-        throw new IllegalStateException("There is no " + color + " king on the board");
+    private boolean testCheck(Color color){
+        return board.isAttacked(board.kingSquare(color), opponent(color));
     }
 
-    private boolean testCheck(Color color){
-        Position kingPosition = king(color).getChessPosition().toPosition();
-        List<Piece> opponentPieces = piecesOnTheBoard.stream().filter(x -> ((ChessPiece)x).getColor() == opponent(color)).collect(Collectors.toList());
-        for (Piece p : opponentPieces){
-            boolean[][] mat = p.possibleMoves();
-            if(mat[kingPosition.getRow()][kingPosition.getColumn()]){
-                return true;
-            }
+    private boolean hasLegalMove(Color color){
+        return generateMoves(color, board.getOccupancy(color), null) > 0;
+    }
+
+    //doMove skips this, call it once after a series of doMove calls to know how the game stands
+    public void updateGameState(){
+        check = testCheck(currentPlayer);
+        gameState = evaluateGameState();
+        checkMate = gameState == GameState.CHECKMATE;
+    }
+
+    private GameState evaluateGameState(){
+        if (!hasLegalMove(currentPlayer)){
+            return check ? GameState.CHECKMATE : GameState.STALEMATE;
         }
-        return false;
+        if (halfmoveClock >= 100){
+            return GameState.FIFTY_MOVE_RULE;
+        }
+        if (isInsufficientMaterial()){
+            return GameState.INSUFFICIENT_MATERIAL;
+        }
+        if (repetitions() >= 3){
+            return GameState.THREEFOLD_REPETITION;
+        }
+        return GameState.ONGOING;
     }
 
-    private boolean testCheckMate(Color color){
-        if (!testCheck(color)){
+    public boolean isInsufficientMaterial(){
+        long heavy = 0L;
+        long knights = 0L;
+        long bishops = 0L;
+        for (Color color : Color.values()){
+            heavy |= board.getPieces(color, PieceType.PAWN) | board.getPieces(color, PieceType.ROOK) | board.getPieces(color, PieceType.QUEEN);
+            knights |= board.getPieces(color, PieceType.KNIGHT);
+            bishops |= board.getPieces(color, PieceType.BISHOP);
+        }
+        if (heavy != 0){
             return false;
         }
+        if (Long.bitCount(knights | bishops) <= 1){
+            return true;
+        }
+        //only bishops left, all of them on squares of the same color
+        return knights == 0 && ((bishops & DARK_SQUARES) == 0 || (bishops & ~DARK_SQUARES) == 0);
+    }
 
-        List<Piece> list = piecesOnTheBoard.stream().filter(x -> ((ChessPiece)x).getColor() == color).collect(Collectors.toList());
-
-        for (Piece p : list){
-            boolean[][] mat = p.possibleMoves();
-            for (int i=0; i<board.getRows(); i++){
-                for (int j=0; j<board.getColumns(); j++){
-                    if (mat[i][j]){
-                        Position source = ((ChessPiece)p).getChessPosition().toPosition();
-                        Position target = new Position(i, j);
-                        Piece capturedPiece = makeMove(source, target);
-                        boolean testCheck = testCheck(color);
-                        undoMove(source, target, capturedPiece);
-                        if (!testCheck){
-                            return false;
-                        }
-                    }
-                }
+    private int repetitions(){
+        long key = positionKeys[positionCount - 1];
+        int count = 1;
+        //only positions since the last capture or pawn move can repeat, and only with the same player to move
+        int limit = Math.max(0, positionCount - 1 - halfmoveClock);
+        for (int i = positionCount - 3; i >= limit; i -= 2){
+            if (positionKeys[i] == key){
+                count++;
             }
         }
-        return true;
+        return count;
+    }
+
+    private void recordPosition(){
+        updateStateKey();
+        if (positionCount == positionKeys.length){
+            positionKeys = Arrays.copyOf(positionKeys, positionCount * 2);
+        }
+        positionKeys[positionCount++] = getZobristKey();
+    }
+
+    private void updateStateKey(){
+        stateKey = Zobrist.side(currentPlayer) ^ Zobrist.castling(getCastlingRights());
+        int enPassantTarget = enPassantTarget();
+        if (enPassantTarget >= 0){
+            stateKey ^= Zobrist.enPassant(enPassantTarget & 7);
+        }
+    }
+
+    //square behind the pawn that just moved two rows, only if the player to move can capture on it
+    int enPassantTarget(){
+        int target = getEnPassantSquare();
+        if (target < 0){
+            return -1;
+        }
+        long attackers = Attacks.pawnAttacks(opponent(currentPlayer), target) & board.getPieces(currentPlayer, PieceType.PAWN);
+        return (attackers != 0) ? target : -1;
+    }
+
+    //bits: 1 yellow kingside, 2 yellow queenside, 4 red kingside, 8 red queenside
+    public int getCastlingRights(){
+        return rights & 15;
+    }
+
+    //square behind the pawn that just moved two rows, -1 if the last move wasn't a double step
+    public int getEnPassantSquare(){
+        return (rights >>> 4) - 1;
+    }
+
+    //the rights from the pieces that never moved, only when a position is set up
+    private int scanCastlingRights(){
+        int castling = 0;
+        if (isUnmoved(60, PieceType.KING, Color.YELLOW)){
+            if (isUnmoved(63, PieceType.ROOK, Color.YELLOW)) castling |= 1;
+            if (isUnmoved(56, PieceType.ROOK, Color.YELLOW)) castling |= 2;
+        }
+        if (isUnmoved(4, PieceType.KING, Color.RED)){
+            if (isUnmoved(7, PieceType.ROOK, Color.RED)) castling |= 4;
+            if (isUnmoved(0, PieceType.ROOK, Color.RED)) castling |= 8;
+        }
+        return castling;
+    }
+
+    private boolean isUnmoved(int square, PieceType type, Color color){
+        ChessPiece p = board.piece(square);
+        return p != null && p.getType() == type && p.getColor() == color && p.getMoveCount() == 0;
     }
 
     private void placeNewPiece(char column, int row, ChessPiece piece){ //upcasting
-        board.placePiece(piece, new ChessPosition(column, row).toPosition());
+        board.placePiece(piece, ChessPosition.of(column, row).toPosition());
         piecesOnTheBoard.add(piece);
         //upcasting do ChessPiece para Piece
         //o toPosition do ChessPositon retorna um Position
     }
 
+    void placeNewPiece(PieceType type, Color color, int square, int moveCount){
+        ChessPiece piece = newPiece(type, color);
+        piece.setMoveCount(moveCount);
+        board.placePiece(piece, ChessBoard.position(square));
+        piecesOnTheBoard.add(piece);
+    }
+
+    //called once every piece is on the board; enPassantTarget is the square behind the pawn that moved two rows, or -1
+    void startPosition(int enPassantTarget, int halfmoveClock){
+        for (Color color : Color.values()){
+            if (Long.bitCount(board.getPieces(color, PieceType.KING)) != 1){
+                throw new ChessException("There must be exactly one " + color + " king on the board");
+            }
+        }
+        if (testCheck(opponent(currentPlayer))){
+            throw new ChessException("The " + opponent(currentPlayer) + " king can't be in check when it is not its turn");
+        }
+        rights = scanCastlingRights();
+        if (enPassantTarget >= 0){
+            ChessPiece pawn = board.piece(enPassantTarget + ((currentPlayer == Color.YELLOW) ? 8 : -8));
+            if (pawn instanceof Pawn && pawn.getColor() != currentPlayer){
+                enPassantVulnerable = pawn;
+                rights |= (enPassantTarget + 1) << 4;
+            }
+        }
+        this.halfmoveClock = halfmoveClock;
+        recordPosition();
+        updateGameState();
+    }
+
     private void initialSetup(){
         placeNewPiece('a', 1, new Rook(board, Color.YELLOW));
         placeNewPiece('b', 1, new Knight(board, Color.YELLOW));
@@ -350,4 +939,17 @@ public class ChessMatch {
         placeNewPiece('h', 7, new Pawn(board, Color.RED, this));
     }
 
+    //what doMove needs to put the match back exactly as it was
+    private static class PlyState {
+        int move;
+        Piece captured;
+        ChessPiece pawn;
+        ChessPiece enPassantVulnerable;
+        ChessPiece promoted;
+        int halfmoveClock;
+        int rights;
+        long stateKey;
+        boolean check;
+        GameState gameState;
+    }
 }
@@ -7,6 +7,7 @@ import boardgame.Position;
 public abstract class ChessPiece extends Piece {
     private Color color;
     private  int moveCount;
+    int slot = -1; //posicao na PieceList da partida, -1 fora do tabuleiro
 
     public ChessPiece(Board board, Color color) {
         super(board);
@@ -17,6 +18,8 @@ public abstract class ChessPiece extends Piece {
         return color;
     }
 
+    public abstract PieceType getType();
+
     public int getMoveCount(){
         return moveCount;
     }
@@ -29,10 +32,49 @@ public abstract class ChessPiece extends Piece {
         moveCount--;
     }
 
+    void setMoveCount(int moveCount){
+        this.moveCount = moveCount;
+    }
+
     public ChessPosition getChessPosition(){
         return ChessPosition.fromPosition(position);
     }
 
+    public int getSquare(){
+        if (position == null){
+            return -1; //peca capturada, fora do tabuleiro
+        }
+        return ChessBoard.square(position);
+    }
+
+    protected ChessBoard getChessBoard(){
+        return (ChessBoard) getBoard();
+    }
+
+    public abstract long possibleMovesBitboard();
+
+    @Override
+    public boolean[][] possibleMoves(){
+        boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
+        long moves = possibleMovesBitboard();
+        while (moves != 0){
+            int square = Long.numberOfTrailingZeros(moves);
+            mat[square >>> 3][square & 7] = true;
+            moves &= moves - 1;
+        }
+        return mat;
+    }
+
+    @Override
+    public boolean possibleMove(Position position){
+        return (possibleMovesBitboard() & 1L << ChessBoard.square(position)) != 0;
+    }
+
+    @Override
+    public boolean isThereAnyPossibleMove(){
+        return possibleMovesBitboard() != 0;
+    }
+
     protected boolean isThereOpponentPiece(Position position){
         ChessPiece p = (ChessPiece) getBoard().piece(position);
         return p != null && p.getColor() != color; //diferente da cor da minha peca
@@ -3,8 +3,17 @@ package chess;
 import boardgame.Position;
 
 public class ChessPosition {
-    private char column;
-    private int row;
+    //uma instancia por casa, imutavel, para nao alocar nos caminhos quentes
+    private static final ChessPosition[] SQUARES = new ChessPosition[64];
+
+    static {
+        for (int square = 0; square < 64; square++){
+            SQUARES[square] = new ChessPosition((char) ('a' + (square & 7)), 8 - (square >>> 3));
+        }
+    }
+
+    private final char column;
+    private final int row;
 
     public ChessPosition(char column, int row) {
         if (column < 'a' || column > 'h' || row < 1 || row > 8){
@@ -14,6 +23,21 @@ public class ChessPosition {
         this.row = row;
     }
 
+    //the shared instance of the square, prefer it to the constructor
+    public static ChessPosition of(char column, int row){
+        if (column < 'a' || column > 'h' || row < 1 || row > 8){
+            throw new ChessException("Error instantiating ChessPosition. Valid values are from a1 to h8.");
+        }
+        return SQUARES[(8 - row) * 8 + (column - 'a')];
+    }
+
+    public static ChessPosition of(int square){
+        if (square < 0 || square >= 64){
+            throw new ChessException("Invalid square: " + square);
+        }
+        return SQUARES[square];
+    }
+
     public char getColumn() {
         return column;
     }
@@ -22,16 +46,35 @@ public class ChessPosition {
         return row;
     }
 
+    //index 0..63, row 0 (rank 8) first
+    public int getSquare() {
+        return (8 - row) * 8 + (column - 'a');
+    }
+
     protected Position toPosition(){
         //8 - chessrow -> 8 - 6 = 2
         //character - 'a' = 63(c) - 61(a) = 2
-        return new Position(8 - row, column - 'a'); //retorna a Position com valores numericos
+        return ChessBoard.position(getSquare()); //posicao compartilhada, nao aloca
     }
 
     protected static ChessPosition fromPosition(Position position){
         //8 - chessrow = 8 - 4 = 4
         //'a' + column = a + 3 = 64/'d'
-        return new ChessPosition((char)('a' + position.getColumn()), (8 - position.getRow()));
+        return SQUARES[ChessBoard.square(position)];
+    }
+
+    @Override
+    public boolean equals(Object o){
+        if (!(o instanceof ChessPosition)){
+            return false;
+        }
+        ChessPosition other = (ChessPosition) o;
+        return column == other.column && row == other.row;
+    }
+
+    @Override
+    public int hashCode(){
+        return getSquare();
     }
 
     @Override
@@ -0,0 +1,348 @@
+package chess;
+
+import java.nio.ByteBuffer;
+
+public final class Fen {
+    public static final String INITIAL_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final char[] PIECE_CHARS = {'p', 'n', 'b', 'r', 'q', 'k'};
+
+    private Fen() {
+    }
+
+    //uppercase letters and "w" are the yellow pieces, lowercase and "b" the red ones
+    public static ChessMatch parse(CharSequence fen){
+        return parse(fen, 0, fen.length());
+    }
+
+    public static ChessMatch parse(CharSequence fen, int start, int end){
+        Parser parser = new Parser(fen, start, end);
+        ChessMatch match = parser.parse();
+        parser.skipSpaces();
+        if (parser.pos < end){
+            throw parser.error("Unexpected characters after FEN");
+        }
+        return match;
+    }
+
+    //reads one FEN line (ascii) from the buffer's position and leaves the position after the line break,
+    //so a file with one position per line can be loaded with while (buffer.hasRemaining())
+    public static ChessMatch parse(ByteBuffer buffer){
+        Parser parser = new Parser(new AsciiSequence(buffer), buffer.position(), buffer.limit());
+        ChessMatch match = parser.parse();
+        parser.skipSpaces();
+        if (parser.pos < parser.end && parser.current() != '\n' && parser.current() != '\r'){
+            throw parser.error("Unexpected characters after FEN");
+        }
+        while (parser.pos < parser.end && (parser.current() == '\n' || parser.current() == '\r')){
+            parser.pos++;
+        }
+        buffer.position(parser.pos);
+        return match;
+    }
+
+    public static String toFen(ChessMatch match){
+        return append(match, new StringBuilder(90)).toString();
+    }
+
+    public static StringBuilder append(ChessMatch match, StringBuilder sb){
+        for (int row = 0; row < 8; row++){
+            if (row > 0){
+                sb.append('/');
+            }
+            int empty = 0;
+            for (int column = 0; column < 8; column++){
+                ChessPiece piece = match.getPiece(row * 8 + column);
+                if (piece == null){
+                    empty++;
+                    continue;
+                }
+                if (empty > 0){
+                    sb.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                char c = PIECE_CHARS[piece.getType().ordinal()];
+                sb.append((piece.getColor() == Color.YELLOW) ? Character.toUpperCase(c) : c);
+            }
+            if (empty > 0){
+                sb.append((char) ('0' + empty));
+            }
+        }
+
+        sb.append((match.getCurrentPlayer() == Color.YELLOW) ? " w " : " b ");
+
+        int rights = match.getCastlingRights();
+        if (rights == 0){
+            sb.append('-');
+        }else{
+            if ((rights & 1) != 0) sb.append('K');
+            if ((rights & 2) != 0) sb.append('Q');
+            if ((rights & 4) != 0) sb.append('k');
+            if ((rights & 8) != 0) sb.append('q');
+        }
+
+        sb.append(' ');
+        int enPassantSquare = match.getEnPassantSquare();
+        if (enPassantSquare >= 0){
+            sb.append(Move.squareName(enPassantSquare));
+        }else{
+            sb.append('-');
+        }
+
+        sb.append(' ').append(match.getHalfmoveClock());
+        sb.append(' ').append((match.getTurn() + 1) / 2);
+        return sb;
+    }
+
+    //single pass over the characters: the board field is only remembered by its bounds and walked again
+    //once the side to move and castling rights are known, so nothing is copied or split
+    private static final class Parser {
+        private final CharSequence chars;
+        private final int end;
+        private int pos;
+
+        Parser(CharSequence chars, int start, int end) {
+            this.chars = chars;
+            this.pos = start;
+            this.end = end;
+        }
+
+        ChessMatch parse(){
+            skipSpaces();
+            int boardStart = pos;
+            skipField();
+            int boardEnd = pos;
+            if (boardStart == boardEnd){
+                throw error("Empty FEN");
+            }
+
+            skipSpaces();
+            Color currentPlayer;
+            char side = next();
+            if (side == 'w'){
+                currentPlayer = Color.YELLOW;
+            }else if (side == 'b'){
+                currentPlayer = Color.RED;
+            }else{
+                throw errorAt(pos - 1, "Invalid FEN side to move");
+            }
+            endField();
+
+            skipSpaces();
+            int castling = parseCastling();
+
+            skipSpaces();
+            int enPassantTarget = -1;
+            if (current() == '-'){
+                pos++;
+            }else{
+                enPassantTarget = parseSquare();
+            }
+            endField();
+
+            //the move counters are optional
+            skipSpaces();
+            int halfmoveClock = atFieldStart() ? parseNumber() : 0;
+            skipSpaces();
+            int fullmove = atFieldStart() ? Math.max(1, parseNumber()) : 1;
+
+            ChessMatch match = new ChessMatch(currentPlayer, 2 * (fullmove - 1) + ((currentPlayer == Color.YELLOW) ? 1 : 2));
+            placePieces(match, boardStart, boardEnd, castling);
+            match.startPosition(enPassantTarget, halfmoveClock);
+            return match;
+        }
+
+        private void placePieces(ChessMatch match, int start, int end, int castling){
+            int row = 0;
+            int column = 0;
+            for (int i = start; i < end; i++){
+                char c = chars.charAt(i);
+                if (c == '/'){
+                    if (column != 8 || row == 7){
+                        throw errorAt(i, "Invalid FEN board, wrong number of squares in row " + (row + 1));
+                    }
+                    row++;
+                    column = 0;
+                }else if (c >= '1' && c <= '8'){
+                    column += c - '0';
+                    if (column > 8){
+                        throw errorAt(i, "Invalid FEN board, too many squares in row " + (row + 1));
+                    }
+                }else{
+                    if (column > 7){
+                        throw errorAt(i, "Invalid FEN board, too many squares in row " + (row + 1));
+                    }
+                    PieceType type = pieceType(c, i);
+                    Color color = (c < 'a') ? Color.YELLOW : Color.RED;
+                    int square = row * 8 + column;
+                    match.placeNewPiece(type, color, square, initialMoveCount(type, color, square, castling));
+                    column++;
+                }
+            }
+            if (row != 7 || column != 8){
+                throw errorAt(start, "Invalid FEN board, expected 8 rows of 8 squares");
+            }
+        }
+
+        //bits: 1 yellow kingside, 2 yellow queenside, 4 red kingside, 8 red queenside
+        private int parseCastling(){
+            if (current() == '-'){
+                pos++;
+                endField();
+                return 0;
+            }
+            int rights = 0;
+            while (pos < end && !isSpace(chars.charAt(pos))){
+                switch (chars.charAt(pos)){
+                    case 'K': rights |= 1; break;
+                    case 'Q': rights |= 2; break;
+                    case 'k': rights |= 4; break;
+                    case 'q': rights |= 8; break;
+                    default: throw error("Invalid FEN castling rights");
+                }
+                pos++;
+            }
+            if (rights == 0){
+                throw error("Invalid FEN castling rights");
+            }
+            return rights;
+        }
+
+        private int parseSquare(){
+            char column = next();
+            char row = next();
+            if (column < 'a' || column > 'h' || row < '1' || row > '8'){
+                throw errorAt(pos - 2, "Invalid FEN square");
+            }
+            return (8 - (row - '0')) * 8 + (column - 'a');
+        }
+
+        private int parseNumber(){
+            int value = 0;
+            int start = pos;
+            while (pos < end && !isSpace(chars.charAt(pos))){
+                char c = chars.charAt(pos++);
+                if (c < '0' || c > '9' || value > 100_000){
+                    throw errorAt(start, "Invalid FEN number");
+                }
+                value = value * 10 + (c - '0');
+            }
+            return value;
+        }
+
+        private char current(){
+            if (pos >= end){
+                throw error("Invalid FEN, expected at least 4 fields");
+            }
+            return chars.charAt(pos);
+        }
+
+        private char next(){
+            char c = current();
+            pos++;
+            return c;
+        }
+
+        private boolean atFieldStart(){
+            return pos < end && !isSpace(chars.charAt(pos));
+        }
+
+        private void skipField(){
+            while (pos < end && !isSpace(chars.charAt(pos))){
+                pos++;
+            }
+        }
+
+        private void endField(){
+            if (atFieldStart()){
+                throw error("Invalid FEN field");
+            }
+        }
+
+        void skipSpaces(){
+            while (pos < end && (chars.charAt(pos) == ' ' || chars.charAt(pos) == '\t')){
+                pos++;
+            }
+        }
+
+        //a line break ends the FEN, so it counts as the end of a field but is not skipped
+        private static boolean isSpace(char c){
+            return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+        }
+
+        ChessException error(String message){
+            return errorAt(pos, message);
+        }
+
+        //the text is only copied out when there is an error to report
+        private ChessException errorAt(int index, String message){
+            int lineEnd = index;
+            while (lineEnd < end && chars.charAt(lineEnd) != '\n' && chars.charAt(lineEnd) != '\r'){
+                lineEnd++;
+            }
+            return new ChessException(message + " at column " + index + ": " + chars.subSequence(Math.min(index, lineEnd), lineEnd));
+        }
+    }
+
+    //read-only ascii view of a buffer, indexed like the buffer itself
+    private static final class AsciiSequence implements CharSequence {
+        private final ByteBuffer buffer;
+
+        AsciiSequence(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int length(){
+            return buffer.limit();
+        }
+
+        @Override
+        public char charAt(int index){
+            return (char) (buffer.get(index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end){
+            StringBuilder sb = new StringBuilder(end - start);
+            for (int i = start; i < end; i++){
+                sb.append(charAt(i));
+            }
+            return sb;
+        }
+
+        @Override
+        public String toString(){
+            return subSequence(0, length()).toString();
+        }
+    }
+
+    //castling and the pawn double step depend on the pieces never having moved
+    private static int initialMoveCount(PieceType type, Color color, int square, int castling){
+        boolean yellow = color == Color.YELLOW;
+        switch (type){
+            case PAWN:
+                return (square >>> 3 == (yellow ? 6 : 1)) ? 0 : 1;
+            case KING:
+                return (square == (yellow ? 60 : 4) && (castling & (yellow ? 3 : 12)) != 0) ? 0 : 1;
+            case ROOK:
+                if (square == (yellow ? 63 : 7) && (castling & (yellow ? 1 : 4)) != 0) return 0;
+                if (square == (yellow ? 56 : 0) && (castling & (yellow ? 2 : 8)) != 0) return 0;
+                return 1;
+            default:
+                return 0;
+        }
+    }
+
+    private static PieceType pieceType(char c, int index){
+        switch (c){
+            case 'p': case 'P': return PieceType.PAWN;
+            case 'n': case 'N': return PieceType.KNIGHT;
+            case 'b': case 'B': return PieceType.BISHOP;
+            case 'r': case 'R': return PieceType.ROOK;
+            case 'q': case 'Q': return PieceType.QUEEN;
+            case 'k': case 'K': return PieceType.KING;
+            default: throw new ChessException("Invalid FEN piece '" + c + "' at column " + index);
+        }
+    }
+}
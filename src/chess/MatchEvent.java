@@ -0,0 +1,65 @@
+package chess;
+
+//something that happened in a match. One move can send several events: MOVE always, then CAPTURE, CASTLING,
+//PROMOTION, CHECK and GAME_END when they apply. Events are immutable and can be read from any thread
+public final class MatchEvent {
+    public enum Type {
+        MOVE,
+        CAPTURE,
+        CASTLING,
+        PROMOTION,
+        CHECK,
+        GAME_END
+    }
+
+    private final Type type;
+    private final int turn;
+    private final Color player;
+    private final int move;
+    private final PieceType pieceType;
+    private final GameState gameState;
+
+    public MatchEvent(Type type, int turn, Color player, int move, PieceType pieceType, GameState gameState) {
+        this.type = type;
+        this.turn = turn;
+        this.player = player;
+        this.move = move;
+        this.pieceType = pieceType;
+        this.gameState = gameState;
+    }
+
+    public Type getType(){
+        return type;
+    }
+
+    //the turn the move was played on
+    public int getTurn(){
+        return turn;
+    }
+
+    //the player who moved
+    public Color getPlayer(){
+        return player;
+    }
+
+    //packed as in Move
+    public int getMove(){
+        return move;
+    }
+
+    //MOVE: the piece that moved, CAPTURE: the piece taken, PROMOTION: the new piece, otherwise null
+    public PieceType getPieceType(){
+        return pieceType;
+    }
+
+    //the state after the move
+    public GameState getGameState(){
+        return gameState;
+    }
+
+    @Override
+    public String toString(){
+        return type + " " + turn + " " + player + " " + Move.toString(move)
+                + ((pieceType != null) ? " " + pieceType : "") + ((type == Type.GAME_END) ? " " + gameState : "");
+    }
+}
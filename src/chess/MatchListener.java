@@ -0,0 +1,15 @@
+package chess;
+
+import java.util.List;
+
+//called on the thread that plays the move, right after it; see AsyncMatchListener to move the work elsewhere
+public interface MatchListener {
+    void onEvent(MatchEvent event);
+
+    //several events at once, in order
+    default void onEvents(List<MatchEvent> events){
+        for (MatchEvent event : events){
+            onEvent(event);
+        }
+    }
+}
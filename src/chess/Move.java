@@ -0,0 +1,65 @@
+package chess;
+
+public final class Move {
+    //layout: bits 0-5 source square, 6-11 target square, 12-15 flags, 16-18 promotion piece type
+    public static final int CAPTURE = 1;
+    public static final int EN_PASSANT = 2;
+    public static final int CASTLING = 4;
+    public static final int DOUBLE_PUSH = 8;
+
+    private static final PieceType[] TYPES = PieceType.values();
+
+    private Move() {
+    }
+
+    public static int encode(int from, int to, int flags, PieceType promotion){
+        int promotionBits = (promotion == null) ? 0 : promotion.ordinal();
+        return from | to << 6 | flags << 12 | promotionBits << 16;
+    }
+
+    public static int from(int move){
+        return move & 0x3F;
+    }
+
+    public static int to(int move){
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int flags(int move){
+        return (move >>> 12) & 0xF;
+    }
+
+    public static PieceType promotion(int move){
+        int type = (move >>> 16) & 0x7;
+        return (type == 0) ? null : TYPES[type];
+    }
+
+    public static boolean isCapture(int move){
+        return (flags(move) & (CAPTURE | EN_PASSANT)) != 0;
+    }
+
+    public static boolean isEnPassant(int move){
+        return (flags(move) & EN_PASSANT) != 0;
+    }
+
+    public static boolean isCastling(int move){
+        return (flags(move) & CASTLING) != 0;
+    }
+
+    public static boolean isDoublePush(int move){
+        return (flags(move) & DOUBLE_PUSH) != 0;
+    }
+
+    public static String squareName(int square){
+        return "" + (char)('a' + (square & 7)) + (8 - (square >>> 3));
+    }
+
+    public static String toString(int move){
+        String s = squareName(from(move)) + squareName(to(move));
+        PieceType promotion = promotion(move);
+        if (promotion != null){
+            s += (promotion == PieceType.KNIGHT) ? "n" : promotion.name().substring(0, 1).toLowerCase();
+        }
+        return s;
+    }
+}
@@ -0,0 +1,47 @@
+package chess;
+
+import java.util.Arrays;
+
+//the pieces on the board by color and type, each group in a fixed array of slots. Every piece remembers its
+//slot, so adding and removing are O(1): a removed piece's slot gets the last piece of its group
+final class PieceList {
+    private static final int SLOTS = 10; //8 promoted pawns and the 2 original pieces
+
+    private final ChessPiece[][][] pieces = new ChessPiece[2][6][SLOTS];
+    private final int[][] counts = new int[2][6];
+
+    void add(ChessPiece piece){
+        int color = piece.getColor().ordinal();
+        int type = piece.getType().ordinal();
+        ChessPiece[] group = pieces[color][type];
+        int count = counts[color][type];
+        if (count == group.length){
+            //only positions set up by hand can have more
+            group = Arrays.copyOf(group, count * 2);
+            pieces[color][type] = group;
+        }
+        group[count] = piece;
+        piece.slot = count;
+        counts[color][type] = count + 1;
+    }
+
+    void remove(ChessPiece piece){
+        int color = piece.getColor().ordinal();
+        int type = piece.getType().ordinal();
+        ChessPiece[] group = pieces[color][type];
+        int last = --counts[color][type];
+        ChessPiece moved = group[last];
+        group[piece.slot] = moved;
+        moved.slot = piece.slot;
+        group[last] = null;
+        piece.slot = -1;
+    }
+
+    int count(Color color, PieceType type){
+        return counts[color.ordinal()][type.ordinal()];
+    }
+
+    ChessPiece get(Color color, PieceType type, int index){
+        return pieces[color.ordinal()][type.ordinal()][index];
+    }
+}
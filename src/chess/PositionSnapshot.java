@@ -0,0 +1,167 @@
+package chess;
+
+//immutable copy of a position: the 64 squares packed 4 bits each into four longs, plus the side to move,
+//castling rights, en passant square and counters. All fields are final, so a snapshot can be handed to any
+//thread without locking, and two snapshots of the same position are equal and hash alike
+public final class PositionSnapshot implements Comparable<PositionSnapshot> {
+    private static final PieceType[] TYPES = PieceType.values();
+    private static final Color[] COLORS = Color.values();
+    private static final char[] PIECE_CHARS = {'p', 'n', 'b', 'r', 'q', 'k'};
+
+    //square s is the nibble (s & 15) of squares[s >>> 4]: 0 empty, 1 + type for yellow, 9 + type for red
+    private final long squares0;
+    private final long squares1;
+    private final long squares2;
+    private final long squares3;
+    //bit 0 red to move, bits 1-4 castling rights, bits 5-11 en passant square + 1, bits 12-19 halfmove clock
+    private final int state;
+    private final int turn;
+    private final long zobristKey;
+    private final GameState gameState;
+    private final boolean check;
+
+    PositionSnapshot(ChessMatch match) {
+        long[] squares = new long[4];
+        for (Color color : COLORS){
+            int colorBits = (color == Color.YELLOW) ? 1 : 9;
+            for (PieceType type : TYPES){
+                long code = colorBits + type.ordinal();
+                for (long bits = match.getBitboard(color, type); bits != 0; bits &= bits - 1){
+                    int square = Long.numberOfTrailingZeros(bits);
+                    squares[square >>> 4] |= code << ((square & 15) * 4);
+                }
+            }
+        }
+        squares0 = squares[0];
+        squares1 = squares[1];
+        squares2 = squares[2];
+        squares3 = squares[3];
+        state = ((match.getCurrentPlayer() == Color.RED) ? 1 : 0)
+                | match.getCastlingRights() << 1
+                | (match.enPassantTarget() + 1) << 5
+                | Math.min(255, match.getHalfmoveClock()) << 12;
+        turn = match.getTurn();
+        zobristKey = match.getZobristKey();
+        gameState = match.getGameState();
+        check = match.getCheck();
+    }
+
+    private int code(int square){
+        long word;
+        switch (square >>> 4){
+            case 0: word = squares0; break;
+            case 1: word = squares1; break;
+            case 2: word = squares2; break;
+            default: word = squares3; break;
+        }
+        return (int) (word >>> ((square & 15) * 4)) & 15;
+    }
+
+    public boolean isEmpty(int square){
+        return code(square) == 0;
+    }
+
+    //null for an empty square
+    public PieceType getPieceType(int square){
+        int code = code(square);
+        return (code == 0) ? null : TYPES[(code - 1) & 7];
+    }
+
+    public Color getColor(int square){
+        int code = code(square);
+        return (code == 0) ? null : (code < 9) ? Color.YELLOW : Color.RED;
+    }
+
+    public Color getCurrentPlayer(){
+        return ((state & 1) != 0) ? Color.RED : Color.YELLOW;
+    }
+
+    //bits: 1 yellow kingside, 2 yellow queenside, 4 red kingside, 8 red queenside
+    public int getCastlingRights(){
+        return (state >>> 1) & 15;
+    }
+
+    //the square a pawn can capture en passant on, -1 if none
+    public int getEnPassantSquare(){
+        return ((state >>> 5) & 127) - 1;
+    }
+
+    public int getHalfmoveClock(){
+        return (state >>> 12) & 255;
+    }
+
+    public int getTurn(){
+        return turn;
+    }
+
+    public long getZobristKey(){
+        return zobristKey;
+    }
+
+    public GameState getGameState(){
+        return gameState;
+    }
+
+    public boolean getCheck(){
+        return check;
+    }
+
+    //the position only: same pieces, player to move, castling rights and en passant square
+    @Override
+    public boolean equals(Object o){
+        if (this == o){
+            return true;
+        }
+        if (!(o instanceof PositionSnapshot)){
+            return false;
+        }
+        PositionSnapshot other = (PositionSnapshot) o;
+        return squares0 == other.squares0 && squares1 == other.squares1 && squares2 == other.squares2
+                && squares3 == other.squares3 && (state & 0xFFF) == (other.state & 0xFFF);
+    }
+
+    @Override
+    public int hashCode(){
+        return (int) (zobristKey ^ (zobristKey >>> 32));
+    }
+
+    //an arbitrary but consistent order, e.g. for sorted collections
+    @Override
+    public int compareTo(PositionSnapshot other){
+        int c = Long.compareUnsigned(squares0, other.squares0);
+        if (c == 0) c = Long.compareUnsigned(squares1, other.squares1);
+        if (c == 0) c = Long.compareUnsigned(squares2, other.squares2);
+        if (c == 0) c = Long.compareUnsigned(squares3, other.squares3);
+        if (c == 0) c = Integer.compare(state & 0xFFF, other.state & 0xFFF);
+        return c;
+    }
+
+    //the board field of the FEN
+    @Override
+    public String toString(){
+        StringBuilder sb = new StringBuilder(72);
+        for (int row = 0; row < 8; row++){
+            if (row > 0){
+                sb.append('/');
+            }
+            int empty = 0;
+            for (int column = 0; column < 8; column++){
+                int code = code(row * 8 + column);
+                if (code == 0){
+                    empty++;
+                    continue;
+                }
+                if (empty > 0){
+                    sb.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                char c = PIECE_CHARS[(code - 1) & 7];
+                sb.append((code < 9) ? Character.toUpperCase(c) : c);
+            }
+            if (empty > 0){
+                sb.append((char) ('0' + empty));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,61 @@
+package chess;
+
+public final class Zobrist {
+    private static final long[][][] PIECES = new long[2][6][64];
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT = new long[8];
+    private static final long SIDE;
+
+    static {
+        //fixed seed so keys are the same across runs and machines
+        long seed = 0x3243F6A8885A308DL;
+        for (int color = 0; color < 2; color++){
+            for (int type = 0; type < 6; type++){
+                for (int square = 0; square < 64; square++){
+                    seed = next(seed);
+                    PIECES[color][type][square] = mix(seed);
+                }
+            }
+        }
+        for (int i = 0; i < CASTLING.length; i++){
+            seed = next(seed);
+            CASTLING[i] = (i == 0) ? 0L : mix(seed);
+        }
+        for (int i = 0; i < EN_PASSANT.length; i++){
+            seed = next(seed);
+            EN_PASSANT[i] = mix(seed);
+        }
+        seed = next(seed);
+        SIDE = mix(seed);
+    }
+
+    private Zobrist() {
+    }
+
+    public static long piece(Color color, PieceType type, int square){
+        return PIECES[color.ordinal()][type.ordinal()][square];
+    }
+
+    public static long castling(int rights){
+        return CASTLING[rights];
+    }
+
+    public static long enPassant(int column){
+        return EN_PASSANT[column];
+    }
+
+    public static long side(Color color){
+        return (color == Color.RED) ? SIDE : 0L;
+    }
+
+    private static long next(long seed){
+        return seed + 0x9E3779B97F4A7C15L;
+    }
+
+    //splitmix64 finalizer
+    private static long mix(long z){
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
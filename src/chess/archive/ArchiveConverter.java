@@ -0,0 +1,42 @@
+package chess.archive;
+
+import chess.ChessException;
+import chess.notation.PgnGame;
+import chess.notation.PgnReader;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Paths;
+
+//PGN to binary archive; games that can't be read are reported and left out
+public class ArchiveConverter {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2){
+            System.out.println("Usage: ArchiveConverter games.pgn games.archive");
+            return;
+        }
+        long errors = 0;
+        long start = System.nanoTime();
+        try (PgnReader reader = new PgnReader(new FileInputStream(args[0]));
+             GameArchiveWriter writer = new GameArchiveWriter(Paths.get(args[1]))){
+            while (true){
+                PgnGame game;
+                try {
+                    game = reader.next();
+                } catch (ChessException e) {
+                    errors++;
+                    System.out.println(e.getMessage());
+                    continue;
+                }
+                if (game == null){
+                    break;
+                }
+                writer.add(game);
+            }
+            long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            System.out.println("Games: " + writer.size() + " (" + errors + " skipped), " + reader.getBytesRead() + " bytes of PGN");
+            System.out.println("Time: " + millis + " ms, " + reader.getGamesPerSecond() + " games/s");
+        }
+    }
+}
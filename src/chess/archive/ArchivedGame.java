@@ -0,0 +1,68 @@
+package chess.archive;
+
+import chess.ChessMatch;
+import chess.Fen;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+//view of one record inside the mapped archive, nothing is copied until a value is asked for
+public class ArchivedGame {
+    private ByteBuffer buffer;
+    private int offset;
+
+    void set(ByteBuffer buffer, int offset){
+        this.buffer = buffer;
+        this.offset = offset;
+    }
+
+    public int getPlyCount(){
+        return buffer.getChar(offset);
+    }
+
+    public String getResult(){
+        return GameArchive.result(buffer.get(offset + 2));
+    }
+
+    private int fenLength(){
+        return buffer.get(offset + 3) & 0xFF;
+    }
+
+    //null when the game starts from the initial position
+    public String getStartFen(){
+        int length = fenLength();
+        if (length == 0){
+            return null;
+        }
+        byte[] fen = new byte[length];
+        buffer.get(offset + GameArchive.RECORD_HEADER_SIZE, fen);
+        return new String(fen, StandardCharsets.US_ASCII);
+    }
+
+    public int getMove(int ply){
+        return CompactMove.decode(buffer.getShort(offset + GameArchive.RECORD_HEADER_SIZE + fenLength() + 2 * ply));
+    }
+
+    public ChessMatch startPosition(){
+        int length = fenLength();
+        if (length == 0){
+            return new ChessMatch();
+        }
+        //parsed straight from the mapped bytes
+        ByteBuffer fen = buffer.duplicate();
+        fen.limit(offset + GameArchive.RECORD_HEADER_SIZE + length).position(offset + GameArchive.RECORD_HEADER_SIZE);
+        return Fen.parse(fen);
+    }
+
+    //the moves were checked when the archive was written, so they are played with the unchecked doMove
+    public ChessMatch replay(){
+        ChessMatch match = startPosition();
+        int movesOffset = offset + GameArchive.RECORD_HEADER_SIZE + fenLength();
+        int plyCount = getPlyCount();
+        for (int i = 0; i < plyCount; i++){
+            match.doMove(CompactMove.decode(buffer.getShort(movesOffset + 2 * i)));
+        }
+        match.updateGameState();
+        return match;
+    }
+}
@@ -0,0 +1,57 @@
+package chess.archive;
+
+import chess.Move;
+import chess.PieceType;
+
+//16-bit form of a packed move for the archive: bits 0-5 source, 6-11 target, 12-15 kind.
+//the kind keeps the flags too, so a move is decoded without generating the moves of the position
+public final class CompactMove {
+    private static final int QUIET = 0;
+    private static final int DOUBLE_PUSH = 1;
+    private static final int CASTLING = 2;
+    private static final int CAPTURE = 3;
+    private static final int EN_PASSANT = 4;
+    private static final int PROMOTION = 8; //+0..3 for knight, bishop, rook, queen
+    private static final int PROMOTION_CAPTURE = 12;
+
+    private static final PieceType[] PROMOTIONS = {PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN};
+
+    private CompactMove() {
+    }
+
+    public static short encode(int move){
+        int kind;
+        PieceType promotion = Move.promotion(move);
+        if (promotion != null){
+            kind = (Move.isCapture(move) ? PROMOTION_CAPTURE : PROMOTION) + promotion.ordinal() - PieceType.KNIGHT.ordinal();
+        }else if (Move.isEnPassant(move)){
+            kind = EN_PASSANT;
+        }else if (Move.isCapture(move)){
+            kind = CAPTURE;
+        }else if (Move.isCastling(move)){
+            kind = CASTLING;
+        }else if (Move.isDoublePush(move)){
+            kind = DOUBLE_PUSH;
+        }else{
+            kind = QUIET;
+        }
+        return (short) (Move.from(move) | Move.to(move) << 6 | kind << 12);
+    }
+
+    public static int decode(short compact){
+        int from = compact & 0x3F;
+        int to = (compact >>> 6) & 0x3F;
+        int kind = (compact >>> 12) & 0xF;
+        if (kind >= PROMOTION){
+            int flags = (kind >= PROMOTION_CAPTURE) ? Move.CAPTURE : 0;
+            return Move.encode(from, to, flags, PROMOTIONS[kind & 3]);
+        }
+        switch (kind){
+            case DOUBLE_PUSH: return Move.encode(from, to, Move.DOUBLE_PUSH, null);
+            case CASTLING: return Move.encode(from, to, Move.CASTLING, null);
+            case CAPTURE: return Move.encode(from, to, Move.CAPTURE, null);
+            case EN_PASSANT: return Move.encode(from, to, Move.EN_PASSANT, null);
+            default: return Move.encode(from, to, 0, null);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package chess.archive;
+
+import chess.ChessMatch;
+import chess.notation.PgnGame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+//read side of the binary game store, the whole file is memory mapped and games are read in place.
+//layout: header (magic, version, game count, index offset), the game records, then one long offset per game.
+//record: unsigned short ply count, byte result, byte start FEN length (0 = initial position), the FEN in ascii,
+//then one CompactMove per ply
+public class GameArchive implements Closeable {
+    static final int MAGIC = 0x43485341; //"CHSA"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 24;
+    static final int RECORD_HEADER_SIZE = 4;
+    static final int MAX_PLIES = 0xFFFF;
+    static final int MAX_FEN_LENGTH = 0xFF;
+    static final int MAX_RECORD_SIZE = RECORD_HEADER_SIZE + MAX_FEN_LENGTH + 2 * MAX_PLIES;
+
+    //a buffer can't map more than 2 GB, so the file is mapped in chunks that overlap by the largest record:
+    //a record (or index entry) that starts in a chunk is always read entirely from that chunk
+    private static final long CHUNK_SIZE = 1L << 30;
+
+    private static final String[] RESULTS = {PgnGame.UNKNOWN, PgnGame.YELLOW_WINS, PgnGame.RED_WINS, PgnGame.DRAW};
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] chunks;
+    private final long gameCount;
+    private final long indexOffset;
+
+    public GameArchive(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        long size = channel.size();
+        if (size < HEADER_SIZE){
+            channel.close();
+            throw new IOException("Not a game archive: " + path);
+        }
+        chunks = new MappedByteBuffer[(int) ((size + CHUNK_SIZE - 1) / CHUNK_SIZE)];
+        for (int i = 0; i < chunks.length; i++){
+            long start = i * CHUNK_SIZE;
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, CHUNK_SIZE + MAX_RECORD_SIZE));
+        }
+        ByteBuffer header = chunks[0];
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION){
+            channel.close();
+            throw new IOException("Not a game archive or unsupported version: " + path);
+        }
+        gameCount = header.getLong(8);
+        indexOffset = header.getLong(16);
+        if (indexOffset + gameCount * 8 != size){
+            channel.close();
+            throw new IOException("Truncated game archive: " + path);
+        }
+    }
+
+    public long size(){
+        return gameCount;
+    }
+
+    public ArchivedGame get(long index){
+        return read(index, new ArchivedGame());
+    }
+
+    //points the given view at a game, so a loop over the archive doesn't allocate
+    public ArchivedGame read(long index, ArchivedGame game){
+        Objects.checkIndex(index, gameCount);
+        long offset = indexEntry(index);
+        int chunk = (int) (offset / CHUNK_SIZE);
+        game.set(chunks[chunk], (int) (offset - chunk * CHUNK_SIZE));
+        return game;
+    }
+
+    //the same view is moved from game to game, don't keep it after the call
+    public void forEach(Consumer<ArchivedGame> action){
+        ArchivedGame game = new ArchivedGame();
+        for (long i = 0; i < gameCount; i++){
+            action.accept(read(i, game));
+        }
+    }
+
+    private long indexEntry(long index){
+        long offset = indexOffset + index * 8;
+        int chunk = (int) (offset / CHUNK_SIZE);
+        return chunks[chunk].getLong((int) (offset - chunk * CHUNK_SIZE));
+    }
+
+    static String result(int code){
+        return RESULTS[code & 3];
+    }
+
+    static int resultCode(String result){
+        for (int i = 0; i < RESULTS.length; i++){
+            if (RESULTS[i].equals(result)){
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    //replays every game of an archive and prints the throughput
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1){
+            System.out.println("Usage: GameArchive file");
+            return;
+        }
+        try (GameArchive archive = new GameArchive(Paths.get(args[0]))){
+            long start = System.nanoTime();
+            long[] plies = new long[1];
+            archive.forEach(game -> {
+                ChessMatch match = game.replay();
+                plies[0] += match.getPlyCount();
+            });
+            long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            System.out.println("Games: " + archive.size() + ", plies: " + plies[0]);
+            System.out.println("Time: " + millis + " ms, " + (archive.size() * 1000 / millis) + " games/s, "
+                    + (plies[0] * 1000 / millis) + " plies/s");
+        }
+    }
+}
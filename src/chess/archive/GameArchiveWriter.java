@@ -0,0 +1,97 @@
+package chess.archive;
+
+import chess.Fen;
+import chess.notation.PgnGame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+//writes the format read by GameArchive; the index and the header are written by close()
+public class GameArchiveWriter implements Closeable {
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+    private long position = GameArchive.HEADER_SIZE;
+    private long[] offsets = new long[1024];
+    private int count;
+
+    public GameArchiveWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        channel.position(GameArchive.HEADER_SIZE);
+    }
+
+    public void add(PgnGame game) throws IOException {
+        String fen = game.getTag("FEN");
+        int[] moves = game.getMoves();
+        add(fen, moves, moves.length, game.getResult());
+    }
+
+    //startFen is null (or the initial position) for a normal game; the moves must be legal from it
+    public void add(String startFen, int[] moves, int plyCount, String result) throws IOException {
+        if (startFen != null && startFen.equals(Fen.INITIAL_POSITION)){
+            startFen = null;
+        }
+        byte[] fen = (startFen == null) ? new byte[0] : startFen.getBytes(StandardCharsets.US_ASCII);
+        if (fen.length > GameArchive.MAX_FEN_LENGTH){
+            throw new IllegalArgumentException("FEN too long for the archive: " + startFen);
+        }
+        if (plyCount > GameArchive.MAX_PLIES){
+            throw new IllegalArgumentException("Game too long for the archive: " + plyCount + " plies");
+        }
+        int size = GameArchive.RECORD_HEADER_SIZE + fen.length + 2 * plyCount;
+        if (buffer.remaining() < size){
+            flush();
+        }
+        if (count == offsets.length){
+            offsets = Arrays.copyOf(offsets, count * 2);
+        }
+        offsets[count++] = position;
+
+        buffer.putChar((char) plyCount);
+        buffer.put((byte) GameArchive.resultCode(result));
+        buffer.put((byte) fen.length);
+        buffer.put(fen);
+        for (int i = 0; i < plyCount; i++){
+            buffer.putShort(CompactMove.encode(moves[i]));
+        }
+        position += size;
+    }
+
+    public long size(){
+        return count;
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()){
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        long indexOffset = position;
+        for (int i = 0; i < count; i++){
+            if (buffer.remaining() < 8){
+                flush();
+            }
+            buffer.putLong(offsets[i]);
+        }
+        flush();
+
+        buffer.putInt(GameArchive.MAGIC);
+        buffer.putInt(GameArchive.VERSION);
+        buffer.putLong(count);
+        buffer.putLong(indexOffset);
+        buffer.flip();
+        channel.write(buffer, 0);
+        buffer.clear();
+        channel.close();
+    }
+}
@@ -0,0 +1,27 @@
+package chess.book;
+
+import chess.Move;
+
+//one candidate move of a book position
+public class BookEntry {
+    private final int move;
+    private final int weight;
+
+    public BookEntry(int move, int weight) {
+        this.move = move;
+        this.weight = weight;
+    }
+
+    public int getMove() {
+        return move;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    @Override
+    public String toString(){
+        return Move.toString(move) + " (" + weight + ")";
+    }
+}
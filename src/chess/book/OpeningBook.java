@@ -0,0 +1,167 @@
+package chess.book;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Move;
+import chess.PieceType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+//book file in the polyglot layout: 16 byte entries (key, move, weight, learn), big-endian, sorted by key.
+//the keys are ChessMatch.getZobristKey(), not the polyglot random table, so books made by other tools don't match.
+//the file is memory mapped and searched in place, nothing is loaded into the heap. Only absolute reads are used,
+//so any number of threads can look up moves at the same time
+public class OpeningBook implements Closeable {
+    static final int ENTRY_SIZE = 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer entries;
+    private final int count;
+    //move buffer for toMove, one per thread instead of a lock
+    private static final ThreadLocal<int[]> MOVES = ThreadLocal.withInitial(() -> new int[ChessMatch.MAX_MOVES]);
+
+    public OpeningBook(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        long size = channel.size();
+        if (size % ENTRY_SIZE != 0 || size > Integer.MAX_VALUE){
+            channel.close();
+            throw new IOException("Not an opening book: " + path);
+        }
+        entries = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        count = (int) (size / ENTRY_SIZE);
+    }
+
+    public int size(){
+        return count;
+    }
+
+    //the book moves of the position that are legal in it, in file order (the builder writes the heaviest first)
+    public List<BookEntry> getEntries(ChessMatch match){
+        List<BookEntry> list = new ArrayList<>();
+        long key = match.getZobristKey();
+        for (int i = firstEntry(key); i < count && entries.getLong(i * ENTRY_SIZE) == key; i++){
+            int move = toMove(match, entries.getChar(i * ENTRY_SIZE + 8));
+            if (move != 0){
+                list.add(new BookEntry(move, weight(i)));
+            }
+        }
+        return list;
+    }
+
+    //the heaviest book move that is legal, or 0 when there is none. The entries are decoded in weight order until one
+    //is legal, so a key collision or a broken entry doesn't hide the other moves of the position
+    public int getBestMove(ChessMatch match){
+        long key = match.getZobristKey();
+        int first = firstEntry(key);
+        int end = first;
+        while (end < count && entries.getLong(end * ENTRY_SIZE) == key){
+            end++;
+        }
+        int lastWeight = Integer.MAX_VALUE;
+        int last = -1;
+        for (int tried = first; tried < end; tried++){
+            //the next one in weight order: the heaviest after the last tried, in file order when the weights are equal
+            int best = -1;
+            for (int i = first; i < end; i++){
+                int weight = weight(i);
+                if ((weight < lastWeight || (weight == lastWeight && i > last)) && (best < 0 || weight > weight(best))){
+                    best = i;
+                }
+            }
+            int move = toMove(match, entries.getChar(best * ENTRY_SIZE + 8));
+            if (move != 0){
+                return move;
+            }
+            lastWeight = weight(best);
+            last = best;
+        }
+        return 0;
+    }
+
+    //a book move chosen with probability proportional to its weight, or 0 when the position is not in the book
+    public int getWeightedMove(ChessMatch match, SplittableRandom random){
+        List<BookEntry> list = getEntries(match);
+        int total = 0;
+        for (BookEntry entry : list){
+            total += entry.getWeight();
+        }
+        if (total == 0){
+            return list.isEmpty() ? 0 : list.get(0).getMove();
+        }
+        int r = random.nextInt(total);
+        for (BookEntry entry : list){
+            r -= entry.getWeight();
+            if (r < 0){
+                return entry.getMove();
+            }
+        }
+        return 0;
+    }
+
+    private int weight(int entry){
+        return entries.getChar(entry * ENTRY_SIZE + 10);
+    }
+
+    //binary search for the first entry with the key, keys compare unsigned as in polyglot
+    private int firstEntry(long key){
+        int low = 0;
+        int high = count;
+        while (low < high){
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(entries.getLong(middle * ENTRY_SIZE), key) < 0){
+                low = middle + 1;
+            }else{
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    //polyglot move: bits 0-2 target file, 3-5 target rank, 6-8 source file, 9-11 source rank, 12-14 promotion.
+    //ranks count from rank 1 and castling is written as the king taking its own rook
+    static char toPolyglot(int move){
+        int from = Move.from(move);
+        int to = Move.to(move);
+        if (Move.isCastling(move)){
+            to = (to > from) ? from + 3 : from - 4;
+        }
+        PieceType promotion = Move.promotion(move);
+        int promotionBits = (promotion == null) ? 0 : promotion.ordinal();
+        return (char) ((to & 7) | (7 - (to >>> 3)) << 3 | (from & 7) << 6 | (7 - (from >>> 3)) << 9 | promotionBits << 12);
+    }
+
+    //the legal move written in polyglot form, or 0 (a key collision can point at a move that doesn't exist)
+    private static int toMove(ChessMatch match, char polyglot){
+        int to = (7 - ((polyglot >>> 3) & 7)) * 8 + (polyglot & 7);
+        int from = (7 - ((polyglot >>> 9) & 7)) * 8 + ((polyglot >>> 6) & 7);
+        int promotion = (polyglot >>> 12) & 7;
+        ChessPiece piece = match.getPiece(from);
+        ChessPiece target = match.getPiece(to);
+        if (piece != null && piece.getType() == PieceType.KING && target != null && target.getType() == PieceType.ROOK
+                && target.getColor() == piece.getColor()){
+            to = (to > from) ? from + 2 : from - 2;
+        }
+        int[] moves = MOVES.get();
+        int n = match.generateMoves(1L << from, moves);
+        for (int i = 0; i < n; i++){
+            PieceType movePromotion = Move.promotion(moves[i]);
+            if (Move.to(moves[i]) == to && ((movePromotion == null) ? 0 : movePromotion.ordinal()) == promotion){
+                return moves[i];
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
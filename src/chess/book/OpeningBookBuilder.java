@@ -0,0 +1,198 @@
+package chess.book;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Color;
+import chess.archive.ArchivedGame;
+import chess.archive.GameArchive;
+import chess.notation.PgnGame;
+import chess.notation.PgnReader;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+//collects the moves played in the first plies of a set of games and writes them as an OpeningBook file.
+//a move scores 2 for every game its side won and 1 for every draw or unfinished game
+public class OpeningBookBuilder {
+    private final int maxPlies;
+    private long[] keys = new long[1 << 16];
+    private long[] values = new long[1 << 16]; //polyglot move << 32 | score
+    private int size;
+
+    public OpeningBookBuilder(int maxPlies) {
+        this.maxPlies = maxPlies;
+    }
+
+    public void addGame(PgnGame game){
+        ChessMatch match = game.startPosition();
+        int plies = Math.min(maxPlies, game.getPlyCount());
+        for (int i = 0; i < plies; i++){
+            add(match, game.getMove(i), game.getResult());
+            match.doMove(game.getMove(i));
+        }
+    }
+
+    public void addGame(ArchivedGame game){
+        ChessMatch match = game.startPosition();
+        int plies = Math.min(maxPlies, game.getPlyCount());
+        String result = game.getResult();
+        for (int i = 0; i < plies; i++){
+            int move = game.getMove(i);
+            add(match, move, result);
+            match.doMove(move);
+        }
+    }
+
+    private void add(ChessMatch match, int move, String result){
+        int score;
+        if (result.equals(PgnGame.YELLOW_WINS)){
+            score = (match.getCurrentPlayer() == Color.YELLOW) ? 2 : 0;
+        }else if (result.equals(PgnGame.RED_WINS)){
+            score = (match.getCurrentPlayer() == Color.RED) ? 2 : 0;
+        }else{
+            score = 1;
+        }
+        if (size == keys.length){
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        keys[size] = match.getZobristKey();
+        values[size] = (long) OpeningBook.toPolyglot(move) << 32 | score;
+        size++;
+    }
+
+    //sorts by key, adds up repeated moves, drops moves that never scored and scales each position's
+    //weights to 16 bits with the heaviest move first. The collected moves are consumed, so it is called once
+    public int write(Path path) throws IOException {
+        sort(0, size - 1);
+        int written = 0;
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)){
+            int i = 0;
+            while (i < size){
+                long key = keys[i];
+                //merge the duplicates of this position in place: values[first..last) become the distinct moves
+                int first = i;
+                int last = i;
+                while (i < size && keys[i] == key){
+                    long move = values[i] >>> 32;
+                    long score = values[i] & 0xFFFFFFFFL;
+                    if (last > first && values[last - 1] >>> 32 == move){
+                        values[last - 1] += score;
+                    }else{
+                        values[last++] = move << 32 | score;
+                    }
+                    i++;
+                }
+                //score << 16 | move, so sorting puts the heaviest move last
+                long max = 0;
+                for (int j = first; j < last; j++){
+                    long score = values[j] & 0xFFFFFFFFL;
+                    values[j] = score << 16 | values[j] >>> 32;
+                    max = Math.max(max, score);
+                }
+                if (max == 0){
+                    continue;
+                }
+                Arrays.sort(values, first, last);
+                for (int j = last - 1; j >= first; j--){
+                    int weight = (int) (((values[j] >>> 16) * 0xFFFF + max - 1) / max);
+                    if (weight == 0){
+                        continue; //only lost games
+                    }
+                    if (buffer.remaining() < OpeningBook.ENTRY_SIZE){
+                        flush(channel, buffer);
+                    }
+                    buffer.putLong(key);
+                    buffer.putChar((char) values[j]);
+                    buffer.putChar((char) weight);
+                    buffer.putInt(0); //learn
+                    written++;
+                }
+            }
+            flush(channel, buffer);
+        }
+        return written;
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()){
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    //quicksort of the two parallel arrays by unsigned key, then by move
+    private void sort(int low, int high){
+        while (low < high){
+            int middle = (low + high) >>> 1;
+            long pivotKey = keys[middle];
+            long pivotValue = values[middle];
+            int i = low;
+            int j = high;
+            while (i <= j){
+                while (compare(keys[i], values[i], pivotKey, pivotValue) < 0) i++;
+                while (compare(keys[j], values[j], pivotKey, pivotValue) > 0) j--;
+                if (i <= j){
+                    long k = keys[i]; keys[i] = keys[j]; keys[j] = k;
+                    long v = values[i]; values[i] = values[j]; values[j] = v;
+                    i++;
+                    j--;
+                }
+            }
+            //recurse into the smaller half, loop on the bigger one
+            if (j - low < high - i){
+                sort(low, j);
+                low = i;
+            }else{
+                sort(i, high);
+                high = j;
+            }
+        }
+    }
+
+    private static int compare(long key, long value, long otherKey, long otherValue){
+        int c = Long.compareUnsigned(key, otherKey);
+        return (c != 0) ? c : Long.compare(value >>> 32, otherValue >>> 32);
+    }
+
+    //builds a book from a PGN file or a game archive (.archive)
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2){
+            System.out.println("Usage: OpeningBookBuilder games.pgn|games.archive book.bin [plies]");
+            return;
+        }
+        OpeningBookBuilder builder = new OpeningBookBuilder((args.length > 2) ? Integer.parseInt(args[2]) : 20);
+        long games = 0;
+        if (args[0].endsWith(".archive")){
+            try (GameArchive archive = new GameArchive(Paths.get(args[0]))){
+                archive.forEach(builder::addGame);
+                games = archive.size();
+            }
+        }else{
+            try (PgnReader reader = new PgnReader(new FileInputStream(args[0]))){
+                while (true){
+                    try {
+                        PgnGame game = reader.next();
+                        if (game == null){
+                            break;
+                        }
+                        builder.addGame(game);
+                        games++;
+                    } catch (ChessException e) {
+                        System.out.println(e.getMessage());
+                    }
+                }
+            }
+        }
+        int entries = builder.write(Paths.get(args[1]));
+        System.out.println("Games: " + games + ", book entries: " + entries);
+    }
+}
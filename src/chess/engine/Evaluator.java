@@ -0,0 +1,208 @@
+package chess.engine;
+
+import chess.Attacks;
+import chess.ChessMatch;
+import chess.Color;
+import chess.PieceSquareTables;
+import chess.PieceType;
+
+//material and piece-square terms come already summed from the board; mobility and king safety are
+//computed from the bitboards, and the pawn structure is taken from the PawnHashTable when it was seen before.
+//middlegame and endgame scores are mixed by the phase (the material left on the board)
+public class Evaluator {
+    //centipawns, indexed by PieceType ordinal
+    public static final int[] PIECE_VALUES = PieceSquareTables.MIDDLEGAME_VALUES;
+
+    private static final PieceType[] TYPES = PieceType.values();
+
+    private static final long FILE_A = 0x0101010101010101L;
+    private static final long FILE_H = FILE_A << 7;
+
+    //per square a piece can go to, counted from the usual number of squares of that piece
+    private static final int[] MOBILITY = {0, 4, 5, 2, 1, 0};
+    private static final int[] MOBILITY_ENDGAME = {0, 4, 5, 4, 2, 0};
+    private static final int[] MOBILITY_BASE = {0, 4, 6, 7, 13, 0};
+
+    //attacks on the squares around the king, the penalty grows with the square of the sum
+    private static final int[] KING_ATTACK_WEIGHT = {0, 2, 2, 3, 5, 0};
+    private static final int SHIELD_BONUS = 12; //own pawn right in front of the king
+    private static final int SHIELD_BONUS_FAR = 6; //one row further
+
+    private static final int DOUBLED = -10;
+    private static final int DOUBLED_ENDGAME = -20;
+    private static final int ISOLATED = -10;
+    private static final int ISOLATED_ENDGAME = -15;
+    //by rows advanced from the player's own side
+    private static final int[] PASSED = {0, 5, 10, 15, 25, 40, 70, 0};
+    private static final int[] PASSED_ENDGAME = {0, 10, 15, 25, 45, 70, 110, 0};
+
+    private static final long[] ADJACENT_FILES = new long[8];
+    //squares in front of a pawn, on its file and the two next to it, that an enemy pawn must not be on
+    private static final long[][] PASSED_MASKS = new long[2][64];
+
+    static {
+        for (int column = 0; column < 8; column++){
+            ADJACENT_FILES[column] = ((column > 0) ? FILE_A << (column - 1) : 0L) | ((column < 7) ? FILE_A << (column + 1) : 0L);
+        }
+        int yellow = Color.YELLOW.ordinal();
+        int red = Color.RED.ordinal();
+        for (int square = 0; square < 64; square++){
+            int row = square >>> 3;
+            long files = ADJACENT_FILES[square & 7] | FILE_A << (square & 7);
+            PASSED_MASKS[yellow][square] = files & ((1L << (row * 8)) - 1); //rows above, towards row 0
+            PASSED_MASKS[red][square] = (row == 7) ? 0L : files & (-1L << ((row + 1) * 8));
+        }
+    }
+
+    private final PawnHashTable pawnTable;
+
+    public Evaluator() {
+        this(1 << 16);
+    }
+
+    public Evaluator(int pawnTableEntries) {
+        pawnTable = new PawnHashTable(pawnTableEntries);
+    }
+
+    //score from the point of view of the player to move
+    public int evaluate(ChessMatch match){
+        int middlegame = match.getMiddlegameScore();
+        int endgame = match.getEndgameScore();
+
+        long pawns = pawnStructure(match);
+        middlegame += PawnHashTable.middlegame(pawns);
+        endgame += PawnHashTable.endgame(pawns);
+
+        long yellowPawnAttacks = pawnAttacks(Color.YELLOW, match.getBitboard(Color.YELLOW, PieceType.PAWN));
+        long redPawnAttacks = pawnAttacks(Color.RED, match.getBitboard(Color.RED, PieceType.PAWN));
+        long mobility = pieces(match, Color.YELLOW, redPawnAttacks);
+        middlegame += (int) (mobility >> 32);
+        endgame += (int) mobility;
+        mobility = pieces(match, Color.RED, yellowPawnAttacks);
+        middlegame -= (int) (mobility >> 32);
+        endgame -= (int) mobility;
+
+        middlegame += kingShield(match, Color.YELLOW) - kingShield(match, Color.RED);
+
+        int phase = Math.min(match.getPhase(), PieceSquareTables.MAX_PHASE);
+        int score = (middlegame * phase + endgame * (PieceSquareTables.MAX_PHASE - phase)) / PieceSquareTables.MAX_PHASE;
+        return (match.getCurrentPlayer() == Color.YELLOW) ? score : -score;
+    }
+
+    public void clear(){
+        pawnTable.clear();
+    }
+
+    //mobility and attacks on the enemy king of one side, middlegame score in the high half and endgame in the low
+    private static long pieces(ChessMatch match, Color color, long enemyPawnAttacks){
+        Color enemy = (color == Color.YELLOW) ? Color.RED : Color.YELLOW;
+        long occupancy = match.getOccupancy();
+        long available = ~match.getOccupancy(color) & ~enemyPawnAttacks;
+        int enemyKing = Long.numberOfTrailingZeros(match.getBitboard(enemy, PieceType.KING));
+        long kingZone = Attacks.kingAttacks(enemyKing) | 1L << enemyKing;
+
+        int middlegame = 0;
+        int endgame = 0;
+        int attackers = 0;
+        int attackWeight = 0;
+        for (int type = PieceType.KNIGHT.ordinal(); type <= PieceType.QUEEN.ordinal(); type++){
+            long pieces = match.getBitboard(color, TYPES[type]);
+            while (pieces != 0){
+                int square = Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+                long attacks = attacks(type, square, occupancy);
+                int count = Long.bitCount(attacks & available) - MOBILITY_BASE[type];
+                middlegame += MOBILITY[type] * count;
+                endgame += MOBILITY_ENDGAME[type] * count;
+                long kingAttacks = attacks & kingZone;
+                if (kingAttacks != 0){
+                    attackers++;
+                    attackWeight += KING_ATTACK_WEIGHT[type] * Long.bitCount(kingAttacks);
+                }
+            }
+        }
+        //a single piece near the king is not an attack yet
+        if (attackers >= 2){
+            middlegame += Math.min(500, attackWeight * attackWeight / 4);
+        }
+        return (long) middlegame << 32 | (endgame & 0xFFFFFFFFL);
+    }
+
+    private static long attacks(int type, int square, long occupancy){
+        switch (type){
+            case 1: return Attacks.knightAttacks(square);
+            case 2: return Attacks.bishopAttacks(square, occupancy);
+            case 3: return Attacks.rookAttacks(square, occupancy);
+            default: return Attacks.queenAttacks(square, occupancy);
+        }
+    }
+
+    //own pawns on the two rows in front of the king
+    private static int kingShield(ChessMatch match, Color color){
+        int king = Long.numberOfTrailingZeros(match.getBitboard(color, PieceType.KING));
+        long pawns = match.getBitboard(color, PieceType.PAWN);
+        long near = Attacks.kingAttacks(king) | 1L << king;
+        long front;
+        long far;
+        if (color == Color.YELLOW){
+            front = (near >>> 8) & ~near;
+            far = front >>> 8;
+        }else{
+            front = (near << 8) & ~near;
+            far = front << 8;
+        }
+        return SHIELD_BONUS * Long.bitCount(front & pawns) + SHIELD_BONUS_FAR * Long.bitCount(far & pawns);
+    }
+
+    private long pawnStructure(ChessMatch match){
+        long key = match.getPawnKey();
+        long data = pawnTable.probe(key);
+        if (data != 0){
+            return data;
+        }
+        long yellowPawns = match.getBitboard(Color.YELLOW, PieceType.PAWN);
+        long redPawns = match.getBitboard(Color.RED, PieceType.PAWN);
+        long yellow = pawnScore(Color.YELLOW, yellowPawns, redPawns);
+        long red = pawnScore(Color.RED, redPawns, yellowPawns);
+        return pawnTable.store(key, (int) (yellow >> 32) - (int) (red >> 32), (int) yellow - (int) red);
+    }
+
+    //doubled, isolated and passed pawns of one side, packed like pieces()
+    private static long pawnScore(Color color, long pawns, long enemyPawns){
+        int middlegame = 0;
+        int endgame = 0;
+        for (int column = 0; column < 8; column++){
+            int count = Long.bitCount(pawns & FILE_A << column);
+            if (count == 0){
+                continue;
+            }
+            if (count > 1){
+                middlegame += DOUBLED * (count - 1);
+                endgame += DOUBLED_ENDGAME * (count - 1);
+            }
+            if ((pawns & ADJACENT_FILES[column]) == 0){
+                middlegame += ISOLATED * count;
+                endgame += ISOLATED_ENDGAME * count;
+            }
+        }
+        long[] passedMasks = PASSED_MASKS[color.ordinal()];
+        long remaining = pawns;
+        while (remaining != 0){
+            int square = Long.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1;
+            if ((passedMasks[square] & enemyPawns) == 0){
+                int advanced = (color == Color.YELLOW) ? 7 - (square >>> 3) : square >>> 3;
+                middlegame += PASSED[advanced];
+                endgame += PASSED_ENDGAME[advanced];
+            }
+        }
+        return (long) middlegame << 32 | (endgame & 0xFFFFFFFFL);
+    }
+
+    private static long pawnAttacks(Color color, long pawns){
+        if (color == Color.YELLOW){
+            return ((pawns & ~FILE_A) >>> 9) | ((pawns & ~FILE_H) >>> 7);
+        }
+        return ((pawns & ~FILE_A) << 7) | ((pawns & ~FILE_H) << 9);
+    }
+}
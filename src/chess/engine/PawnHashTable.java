@@ -0,0 +1,45 @@
+package chess.engine;
+
+import java.util.Arrays;
+
+//the pawn structure scores by ChessMatch.getPawnKey. The pawns change in few moves, so most of the
+//positions of a search find their structure here. Shared by the search threads like the TranspositionTable
+public class PawnHashTable {
+    private static final long PRESENT = 1L << 32; //so a stored entry is never 0, not even for a score of 0
+
+    private final long[] table;
+    private final int mask;
+
+    public PawnHashTable(int entries) {
+        int size = Integer.highestOneBit(Math.max(1, entries));
+        table = new long[size * 2];
+        mask = size - 1;
+    }
+
+    //0 when the structure is not in the table
+    public long probe(long key){
+        int index = ((int) key & mask) << 1;
+        long data = table[index + 1];
+        return ((table[index] ^ data) == key) ? data : 0L;
+    }
+
+    public long store(long key, int middlegame, int endgame){
+        long data = (middlegame & 0xFFFFL) | (endgame & 0xFFFFL) << 16 | PRESENT;
+        int index = ((int) key & mask) << 1;
+        table[index] = key ^ data;
+        table[index + 1] = data;
+        return data;
+    }
+
+    public void clear(){
+        Arrays.fill(table, 0L);
+    }
+
+    public static int middlegame(long data){
+        return (short) data;
+    }
+
+    public static int endgame(long data){
+        return (short) (data >>> 16);
+    }
+}
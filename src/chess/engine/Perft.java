@@ -0,0 +1,162 @@
+package chess.engine;
+
+import chess.ChessMatch;
+import chess.Fen;
+import chess.Move;
+import chess.variant.Variant;
+import chess.variant.VariantMatch;
+
+import java.io.PrintStream;
+
+//counts the leaf nodes of the legal move tree, to check the move generator against known results and to measure its speed
+public class Perft {
+    //fen, then the expected node count for depth 1, 2, 3...
+    private static final Object[][] SUITE = {
+            {Fen.INITIAL_POSITION, new long[]{20, 400, 8902, 197281, 4865609}},
+            //castling, en passant, promotions, pins ("kiwipete")
+            {"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", new long[]{48, 2039, 97862, 4085603}},
+            //en passant discovered checks along the row
+            {"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", new long[]{14, 191, 2812, 43238, 674624}},
+            //promotions and castling while in check
+            {"r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", new long[]{6, 264, 9467, 422333}},
+            {"rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", new long[]{44, 1486, 62379, 2103487}},
+            {"r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", new long[]{46, 2079, 89890, 3894594}},
+            //check by a pawn that just moved two squares: only en passant may take it on the square behind it
+            {"rnrQ4/p2p4/1p1k2pp/4pp2/P1B3KP/bP2P2N/2PP1PPR/R1B5 w - f6 0 19", new long[]{2, 40, 1471, 26686}},
+    };
+
+    //the variants from their initial position, counted the same way
+    private static final Object[][] VARIANT_SUITE = {
+            {Variant.LOS_ALAMOS, new long[]{10, 100, 1212, 14332, 191846}},
+            {Variant.GARDNER, new long[]{7, 53, 506, 4775, 52512}},
+    };
+
+    private final int[][] moves = new int[Searcher.MAX_PLY][ChessMatch.MAX_MOVES];
+
+    public long perft(ChessMatch match, int depth){
+        return perft(match, depth, 0);
+    }
+
+    private long perft(ChessMatch match, int depth, int ply){
+        if (depth == 0){
+            return 1;
+        }
+        int[] list = moves[ply];
+        int count = match.generateMoves(list);
+        if (depth == 1){
+            return count; //bulk counting: the leaves don't need to be played
+        }
+        long nodes = 0;
+        for (int i = 0; i < count; i++){
+            match.doMove(list[i]);
+            nodes += perft(match, depth - 1, ply + 1);
+            match.undoLastMove();
+        }
+        return nodes;
+    }
+
+    public long perft(VariantMatch match, int depth){
+        return perft(match, depth, 0);
+    }
+
+    private long perft(VariantMatch match, int depth, int ply){
+        if (depth == 0){
+            return 1;
+        }
+        int[] list = moves[ply];
+        int count = match.generateMoves(list);
+        if (depth == 1){
+            return count;
+        }
+        long nodes = 0;
+        for (int i = 0; i < count; i++){
+            match.doMove(list[i]);
+            nodes += perft(match, depth - 1, ply + 1);
+            match.undoLastMove();
+        }
+        return nodes;
+    }
+
+    //node count below every root move, to find which move a wrong total comes from
+    public long divide(ChessMatch match, int depth, PrintStream out){
+        long start = System.nanoTime();
+        int[] list = new int[ChessMatch.MAX_MOVES];
+        int count = match.generateMoves(list);
+        long total = 0;
+        for (int i = 0; i < count; i++){
+            match.doMove(list[i]);
+            long nodes = perft(match, depth - 1, 1);
+            match.undoLastMove();
+            out.println(Move.toString(list[i]) + ": " + nodes);
+            total += nodes;
+        }
+        out.println();
+        out.println("Moves: " + count);
+        out.println("Nodes: " + total);
+        printSpeed(out, total, System.nanoTime() - start);
+        return total;
+    }
+
+    //runs every known position and returns true when all of them match
+    public boolean runSuite(PrintStream out){
+        boolean ok = true;
+        long totalNodes = 0;
+        long start = System.nanoTime();
+        for (Object[] test : SUITE){
+            String fen = (String) test[0];
+            long[] expected = (long[]) test[1];
+            ChessMatch match = Fen.parse(fen);
+            boolean pass = true;
+            for (int depth = 1; depth <= expected.length; depth++){
+                long nodes = perft(match, depth);
+                totalNodes += nodes;
+                if (nodes != expected[depth - 1]){
+                    pass = false;
+                    out.println("FAIL " + fen + " depth " + depth + ": " + nodes + " expected " + expected[depth - 1]);
+                }
+            }
+            if (pass){
+                out.println("ok   " + fen);
+            }
+            ok &= pass;
+        }
+        for (Object[] test : VARIANT_SUITE){
+            Variant variant = (Variant) test[0];
+            long[] expected = (long[]) test[1];
+            boolean pass = true;
+            for (int depth = 1; depth <= expected.length; depth++){
+                long nodes = perft(new VariantMatch(variant), depth);
+                totalNodes += nodes;
+                if (nodes != expected[depth - 1]){
+                    pass = false;
+                    out.println("FAIL " + variant + " depth " + depth + ": " + nodes + " expected " + expected[depth - 1]);
+                }
+            }
+            if (pass){
+                out.println("ok   " + variant);
+            }
+            ok &= pass;
+        }
+        printSpeed(out, totalNodes, System.nanoTime() - start);
+        return ok;
+    }
+
+    private static void printSpeed(PrintStream out, long nodes, long nanos){
+        long millis = Math.max(1, nanos / 1_000_000);
+        out.println("Time: " + millis + " ms, " + (nodes * 1000 / millis) + " nodes/s");
+    }
+
+    //no arguments: known-answer suite; "depth" or "depth fen": divide from the initial or the given position
+    public static void main(String[] args){
+        Perft perft = new Perft();
+        if (args.length == 0){
+            if (!perft.runSuite(System.out)){
+                System.exit(1);
+            }
+            return;
+        }
+        int depth = Integer.parseInt(args[0]);
+        String fen = (args.length > 1) ? String.join(" ", java.util.Arrays.copyOfRange(args, 1, args.length)) : Fen.INITIAL_POSITION;
+        perft.divide(Fen.parse(fen), depth, System.out);
+    }
+}
@@ -0,0 +1,170 @@
+package chess.engine;
+
+import chess.ChessMatch;
+import chess.book.OpeningBook;
+import chess.tablebase.Tablebase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class SearchEngine {
+    private final TranspositionTable transpositionTable;
+    private final Evaluator evaluator = new Evaluator();
+    private int threads = 1;
+    private ExecutorService helperPool;
+    private volatile boolean stopRequested;
+    private volatile long nodes;
+    private volatile long timeMillis;
+    private OpeningBook openingBook;
+    private Tablebase tablebase;
+
+    public SearchEngine() {
+        this(64);
+    }
+
+    public SearchEngine(int hashMegabytes) {
+        transpositionTable = new TranspositionTable(hashMegabytes);
+    }
+
+    public SearchEngine(int hashMegabytes, int threads) {
+        this(hashMegabytes);
+        this.threads = checkThreads(threads); //no helper pool exists yet, so there is nothing to shut down
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    //1 thread keeps the search deterministic; more threads run a lazy SMP search sharing the transposition table
+    public synchronized void setThreads(int threads){
+        if (checkThreads(threads) != this.threads){
+            shutdown();
+            this.threads = threads;
+        }
+    }
+
+    private static int checkThreads(int threads){
+        if (threads < 1){
+            throw new IllegalArgumentException("The engine needs at least 1 thread");
+        }
+        return threads;
+    }
+
+    //positions found in the book are answered with its heaviest move, without searching; null turns it off
+    public synchronized void setOpeningBook(OpeningBook openingBook){
+        this.openingBook = openingBook;
+    }
+
+    //endings with few pieces are played from the tablebase and scored exactly inside the search; null turns it off
+    public synchronized void setTablebase(Tablebase tablebase){
+        this.tablebase = tablebase;
+    }
+
+    Tablebase getTablebase(){
+        return tablebase;
+    }
+
+    //searches the position of the match for its current player; the match is left exactly as it was.
+    //a book or tablebase move comes back with depth 0 and no nodes
+    public synchronized SearchResult search(ChessMatch match, SearchLimits limits){
+        stopRequested = false;
+        long startTime = System.currentTimeMillis();
+        if (openingBook != null){
+            int bookMove = openingBook.getBestMove(match);
+            if (bookMove != 0){
+                nodes = 0;
+                timeMillis = System.currentTimeMillis() - startTime;
+                return new SearchResult(bookMove, 0, 0, 0, timeMillis, new int[]{bookMove});
+            }
+        }
+        if (tablebase != null){
+            int result = tablebase.probe(match);
+            int tablebaseMove = (result != Tablebase.NOT_FOUND) ? tablebase.bestMove(match) : 0;
+            if (tablebaseMove != 0){
+                nodes = 0;
+                timeMillis = System.currentTimeMillis() - startTime;
+                return new SearchResult(tablebaseMove, Searcher.tablebaseScore(result, 0), 0, 0, timeMillis, new int[]{tablebaseMove});
+            }
+        }
+        Searcher main = new Searcher(match, transpositionTable, evaluator, this);
+        List<Searcher> helpers = new ArrayList<>();
+        List<Future<?>> running = new ArrayList<>();
+
+        if (threads > 1){
+            if (helperPool == null){
+                helperPool = Executors.newFixedThreadPool(threads - 1, r -> {
+                    Thread t = new Thread(r, "search-helper");
+                    t.setDaemon(true);
+                    return t;
+                });
+            }
+            for (int i = 1; i < threads; i++){
+                //every helper works on its own copy; odd helpers start one ply deeper to spread the work
+                Searcher helper = new Searcher(match.copy(), transpositionTable, evaluator, this);
+                int firstDepth = 1 + (i & 1);
+                helpers.add(helper);
+                running.add(helperPool.submit(() -> helper.iterate(limits, startTime, firstDepth)));
+            }
+        }
+
+        SearchResult result = main.iterate(limits, startTime, 1);
+
+        long total = main.getNodes();
+        for (Searcher helper : helpers){
+            helper.abort();
+        }
+        for (Future<?> future : running){
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Search helper failed", e.getCause());
+            }
+        }
+        for (Searcher helper : helpers){
+            total += helper.getNodes();
+        }
+        nodes = total;
+        timeMillis = System.currentTimeMillis() - startTime;
+        return new SearchResult(result.getBestMove(), result.getScore(), result.getDepth(), total, timeMillis, result.getPrincipalVariation());
+    }
+
+    public int findBestMove(ChessMatch match, SearchLimits limits){
+        return search(match, limits).getBestMove();
+    }
+
+    //can be called from another thread, the search returns the best move found so far
+    public void stop(){
+        stopRequested = true;
+    }
+
+    boolean isStopRequested(){
+        return stopRequested;
+    }
+
+    public void clearHash(){
+        transpositionTable.clear();
+        evaluator.clear();
+    }
+
+    //releases the helper threads, they are created again by the next multi-threaded search
+    public synchronized void shutdown(){
+        if (helperPool != null){
+            helperPool.shutdownNow();
+            helperPool = null;
+        }
+    }
+
+    public long getNodes(){
+        return nodes;
+    }
+
+    public long getNodesPerSecond(){
+        return nodes * 1000 / Math.max(1, timeMillis);
+    }
+}
@@ -0,0 +1,34 @@
+package chess.engine;
+
+public class SearchLimits {
+    private final int depth;
+    private final long timeMillis;
+
+    //timeMillis = 0 means no time limit
+    public SearchLimits(int depth, long timeMillis) {
+        if (depth < 1 || depth >= Searcher.MAX_PLY){
+            throw new IllegalArgumentException("Depth must be between 1 and " + (Searcher.MAX_PLY - 1));
+        }
+        if (timeMillis < 0){
+            throw new IllegalArgumentException("Time limit can't be negative");
+        }
+        this.depth = depth;
+        this.timeMillis = timeMillis;
+    }
+
+    public static SearchLimits depth(int depth){
+        return new SearchLimits(depth, 0);
+    }
+
+    public static SearchLimits time(long timeMillis){
+        return new SearchLimits(Searcher.MAX_PLY - 1, timeMillis);
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+}
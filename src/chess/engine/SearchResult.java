@@ -0,0 +1,73 @@
+package chess.engine;
+
+import chess.Move;
+
+import java.util.Arrays;
+
+public class SearchResult {
+    private final int bestMove;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long timeMillis;
+    private final int[] principalVariation;
+
+    public SearchResult(int bestMove, int score, int depth, long nodes, long timeMillis, int[] principalVariation) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.timeMillis = timeMillis;
+        this.principalVariation = principalVariation;
+    }
+
+    //0 when the position has no legal moves
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    public long getNodesPerSecond(){
+        return nodes * 1000 / Math.max(1, timeMillis);
+    }
+
+    public int[] getPrincipalVariation() {
+        return Arrays.copyOf(principalVariation, principalVariation.length);
+    }
+
+    public boolean isMate(){
+        return Math.abs(score) >= Searcher.MATE - Searcher.MAX_PLY;
+    }
+
+    @Override
+    public String toString(){
+        StringBuilder sb = new StringBuilder();
+        sb.append("depth ").append(depth);
+        if (isMate()){
+            int plies = Searcher.MATE - Math.abs(score);
+            sb.append(" mate ").append((score > 0) ? (plies + 1) / 2 : -(plies / 2));
+        }else{
+            sb.append(" score cp ").append(score);
+        }
+        sb.append(" nodes ").append(nodes).append(" nps ").append(getNodesPerSecond()).append(" time ").append(timeMillis).append(" pv");
+        for (int move : principalVariation){
+            sb.append(' ').append(Move.toString(move));
+        }
+        return sb.toString();
+    }
+}
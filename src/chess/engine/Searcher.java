@@ -0,0 +1,302 @@
+package chess.engine;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Move;
+import chess.PieceType;
+import chess.tablebase.Tablebase;
+
+import java.util.Arrays;
+
+//one search over one ChessMatch: iterative deepening alpha-beta (PVS) with quiescence search
+class Searcher {
+    static final int MAX_PLY = 128;
+    static final int MATE = 32000;
+    static final int INFINITY = 32500;
+
+    private static final int HASH_MOVE_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 29;
+    private static final int KILLER_SCORE = 1 << 28;
+
+    private final ChessMatch match;
+    private final TranspositionTable transpositionTable;
+    private final Evaluator evaluator;
+    private final SearchEngine engine;
+    private final Tablebase tablebase;
+
+    private final int[][] moves = new int[MAX_PLY][ChessMatch.MAX_MOVES];
+    private final int[][] moveScores = new int[MAX_PLY][ChessMatch.MAX_MOVES];
+    private final int[][] killers = new int[MAX_PLY][2];
+    private final int[][] history = new int[64][64];
+    private final int[][] pv = new int[MAX_PLY][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY];
+
+    private long nodes;
+    private long deadline;
+    private boolean stopped;
+    private volatile boolean aborted;
+
+    Searcher(ChessMatch match, TranspositionTable transpositionTable, Evaluator evaluator, SearchEngine engine) {
+        this.match = match;
+        this.transpositionTable = transpositionTable;
+        this.evaluator = evaluator;
+        this.engine = engine;
+        this.tablebase = engine.getTablebase();
+    }
+
+    long getNodes() {
+        return nodes;
+    }
+
+    //stops this searcher only, used by the engine to end the helper threads
+    void abort(){
+        aborted = true;
+    }
+
+    SearchResult iterate(SearchLimits limits, long startTime, int firstDepth){
+        deadline = (limits.getTimeMillis() > 0) ? startTime + limits.getTimeMillis() : Long.MAX_VALUE;
+        SearchResult result = new SearchResult(0, 0, 0, 0, 0, new int[0]);
+        for (int depth = Math.min(firstDepth, limits.getDepth()); depth <= limits.getDepth(); depth++){
+            int score = search(depth, 0, -INFINITY, INFINITY);
+            if (stopped){
+                break;
+            }
+            int[] line = Arrays.copyOf(pv[0], pvLength[0]);
+            result = new SearchResult((line.length > 0) ? line[0] : 0, score, depth, nodes, System.currentTimeMillis() - startTime, line);
+            //no legal moves, or a forced mate already found: deeper iterations can't change the answer
+            if (line.length == 0 || Math.abs(score) >= MATE - depth){
+                break;
+            }
+        }
+        if (result.getBestMove() == 0 && match.generateMoves(moves[0]) > 0){
+            //stopped before the first iteration finished, any legal move is better than none
+            result = new SearchResult(moves[0][0], 0, 0, nodes, System.currentTimeMillis() - startTime, new int[]{moves[0][0]});
+        }
+        return result;
+    }
+
+    private int search(int depth, int ply, int alpha, int beta){
+        pvLength[ply] = 0;
+        if (ply > 0 && (match.getHalfmoveClock() >= 100 || match.isRepetition() || match.isInsufficientMaterial())){
+            return 0;
+        }
+        if (ply > 0 && tablebase != null && Long.bitCount(match.getOccupancy()) <= Tablebase.MAX_PIECES){
+            int result = tablebase.probe(match);
+            if (result != Tablebase.NOT_FOUND){
+                return tablebaseScore(result, ply);
+            }
+        }
+        boolean inCheck = match.getCheck();
+        if (inCheck){
+            depth++; //check extension
+        }
+        if (depth <= 0){
+            return quiesce(ply, alpha, beta);
+        }
+        if (ply >= MAX_PLY - 1){
+            return evaluator.evaluate(match);
+        }
+        if (++nodes % 1024 == 0){
+            checkLimits();
+        }
+
+        long key = match.getZobristKey();
+        long entry = transpositionTable.probe(key);
+        int hashMove = 0;
+        if (entry != 0){
+            hashMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth){
+                int score = scoreFromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || bound == TranspositionTable.LOWER_BOUND && score >= beta
+                        || bound == TranspositionTable.UPPER_BOUND && score <= alpha){
+                    return score;
+                }
+            }
+        }
+
+        int[] list = moves[ply];
+        int count = match.generateMoves(list);
+        if (count == 0){
+            return inCheck ? -MATE + ply : 0;
+        }
+        scoreMoves(ply, count, hashMove);
+
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = 0;
+        for (int i = 0; i < count; i++){
+            int move = pickMove(ply, i, count);
+            match.doMove(move);
+            int score;
+            if (i == 0){
+                score = -search(depth - 1, ply + 1, -beta, -alpha);
+            }else{
+                //null window first, full window only if the move turns out better than the current best
+                score = -search(depth - 1, ply + 1, -alpha - 1, -alpha);
+                if (score > alpha && score < beta){
+                    score = -search(depth - 1, ply + 1, -beta, -alpha);
+                }
+            }
+            match.undoLastMove();
+            if (stopped){
+                return 0;
+            }
+
+            if (score > bestScore){
+                bestScore = score;
+                bestMove = move;
+                if (score > alpha){
+                    alpha = score;
+                    updatePrincipalVariation(ply, move);
+                    if (score >= beta){
+                        if (!Move.isCapture(move) && Move.promotion(move) == null){
+                            if (killers[ply][0] != move){
+                                killers[ply][1] = killers[ply][0];
+                                killers[ply][0] = move;
+                            }
+                            history[Move.from(move)][Move.to(move)] += depth * depth;
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = (bestScore >= beta) ? TranspositionTable.LOWER_BOUND
+                : (bestScore > originalAlpha) ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND;
+        transpositionTable.store(key, bestMove, scoreToTable(bestScore, ply), depth, bound);
+        return bestScore;
+    }
+
+    private int quiesce(int ply, int alpha, int beta){
+        pvLength[ply] = 0;
+        if (++nodes % 1024 == 0){
+            checkLimits();
+        }
+        if (ply >= MAX_PLY - 1){
+            return evaluator.evaluate(match);
+        }
+
+        boolean inCheck = match.getCheck();
+        int[] list = moves[ply];
+        int count;
+        int bestScore;
+        if (inCheck){
+            //no stand pat in check, every evasion has to be looked at
+            count = match.generateMoves(list);
+            if (count == 0){
+                return -MATE + ply;
+            }
+            bestScore = -INFINITY;
+        }else{
+            bestScore = evaluator.evaluate(match);
+            if (bestScore >= beta){
+                return bestScore;
+            }
+            if (bestScore > alpha){
+                alpha = bestScore;
+            }
+            count = match.generateCaptures(list);
+        }
+        scoreMoves(ply, count, 0);
+
+        for (int i = 0; i < count; i++){
+            int move = pickMove(ply, i, count);
+            match.doMove(move);
+            int score = -quiesce(ply + 1, -beta, -alpha);
+            match.undoLastMove();
+            if (stopped){
+                return 0;
+            }
+            if (score > bestScore){
+                bestScore = score;
+                if (score > alpha){
+                    alpha = score;
+                    updatePrincipalVariation(ply, move);
+                    if (score >= beta){
+                        break;
+                    }
+                }
+            }
+        }
+        return bestScore;
+    }
+
+    //hash move first, then captures by MVV-LVA, promotions, killers and finally the history counters
+    private void scoreMoves(int ply, int count, int hashMove){
+        int[] list = moves[ply];
+        int[] scores = moveScores[ply];
+        for (int i = 0; i < count; i++){
+            int move = list[i];
+            if (move == hashMove){
+                scores[i] = HASH_MOVE_SCORE;
+            }else if (Move.isCapture(move)){
+                ChessPiece victim = match.getPiece(Move.to(move));
+                int victimValue = (victim == null) ? Evaluator.PIECE_VALUES[PieceType.PAWN.ordinal()] : Evaluator.PIECE_VALUES[victim.getType().ordinal()];
+                scores[i] = CAPTURE_SCORE + victimValue * 8 - match.getPiece(Move.from(move)).getType().ordinal();
+            }else if (Move.promotion(move) == PieceType.QUEEN){
+                scores[i] = CAPTURE_SCORE;
+            }else if (move == killers[ply][0]){
+                scores[i] = KILLER_SCORE + 1;
+            }else if (move == killers[ply][1]){
+                scores[i] = KILLER_SCORE;
+            }else{
+                scores[i] = Math.min(history[Move.from(move)][Move.to(move)], KILLER_SCORE - 1);
+            }
+        }
+    }
+
+    //the tablebase counts plies from this position, the search counts them from the root
+    static int tablebaseScore(int result, int ply){
+        if (result > 0) return MATE - (ply + result);
+        if (result < 0) return -MATE + ply + (-result - 1);
+        return 0;
+    }
+
+    //selection sort step: brings the best remaining move to position i
+    private int pickMove(int ply, int i, int count){
+        int[] list = moves[ply];
+        int[] scores = moveScores[ply];
+        int best = i;
+        for (int j = i + 1; j < count; j++){
+            if (scores[j] > scores[best]){
+                best = j;
+            }
+        }
+        int move = list[best];
+        list[best] = list[i];
+        list[i] = move;
+        int score = scores[best];
+        scores[best] = scores[i];
+        scores[i] = score;
+        return move;
+    }
+
+    private void updatePrincipalVariation(int ply, int move){
+        pv[ply][0] = move;
+        int length = (ply + 1 < MAX_PLY) ? pvLength[ply + 1] : 0;
+        System.arraycopy(pv[ply + 1], 0, pv[ply], 1, length);
+        pvLength[ply] = length + 1;
+    }
+
+    private void checkLimits(){
+        if (aborted || engine.isStopRequested() || System.currentTimeMillis() >= deadline){
+            stopped = true;
+        }
+    }
+
+    //mate scores are stored relative to the node so they stay correct when reached from another path
+    private static int scoreToTable(int score, int ply){
+        if (score >= MATE - MAX_PLY) return score + ply;
+        if (score <= -MATE + MAX_PLY) return score - ply;
+        return score;
+    }
+
+    private static int scoreFromTable(int score, int ply){
+        if (score >= MATE - MAX_PLY) return score - ply;
+        if (score <= -MATE + MAX_PLY) return score + ply;
+        return score;
+    }
+}
@@ -0,0 +1,74 @@
+package chess.engine;
+
+import java.util.Arrays;
+
+//fixed size hash table shared by the search threads without locks:
+//each entry is stored as (key ^ data, data), so a torn write just fails the key check on probe
+public class TranspositionTable {
+    public static final int EXACT = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int UPPER_BOUND = 3;
+
+    private final long[] table;
+    private final int mask;
+
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1){
+            throw new IllegalArgumentException("The transposition table needs at least 1 MB");
+        }
+        long entries = Long.highestOneBit(megabytes * 1024L * 1024L / 16);
+        table = new long[(int) entries * 2];
+        mask = (int) entries - 1;
+    }
+
+    //returns 0 when the position is not in the table, stored data is never 0 because the bound is never 0
+    public long probe(long key){
+        int index = ((int) key & mask) << 1;
+        long data = table[index + 1];
+        return ((table[index] ^ data) == key) ? data : 0L;
+    }
+
+    public void store(long key, int move, int score, int depth, int bound){
+        int index = ((int) key & mask) << 1;
+        long old = table[index + 1];
+        if ((table[index] ^ old) == key){
+            //same position: keep the deeper result, and the old best move if there is no new one
+            if (depth < depth(old) && bound != EXACT){
+                return;
+            }
+            if (move == 0){
+                move = move(old);
+            }
+        }
+        long data = (move & 0x7FFFFL)
+                | (long) (score & 0xFFFF) << 19
+                | (long) (depth & 0xFF) << 35
+                | (long) bound << 43;
+        table[index] = key ^ data;
+        table[index + 1] = data;
+    }
+
+    public void clear(){
+        Arrays.fill(table, 0L);
+    }
+
+    public int capacity(){
+        return mask + 1;
+    }
+
+    public static int move(long data){
+        return (int) (data & 0x7FFFFL);
+    }
+
+    public static int score(long data){
+        return (short) (data >>> 19);
+    }
+
+    public static int depth(long data){
+        return (int) ((data >>> 35) & 0xFF);
+    }
+
+    public static int bound(long data){
+        return (int) ((data >>> 43) & 0x3);
+    }
+}
@@ -0,0 +1,114 @@
+package chess.notation;
+
+import chess.ChessMatch;
+import chess.Color;
+import chess.Fen;
+import chess.GameState;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//one game of a PGN file: its tags, the moves (packed as in chess.Move) and the result
+public class PgnGame {
+    public static final String YELLOW_WINS = "1-0";
+    public static final String RED_WINS = "0-1";
+    public static final String DRAW = "1/2-1/2";
+    public static final String UNKNOWN = "*";
+
+    private final Map<String, String> tags;
+    private final int[] moves;
+    private final String result;
+    private final ChessMatch match;
+
+    public PgnGame(Map<String, String> tags, int[] moves, String result, ChessMatch match) {
+        this.tags = tags;
+        this.moves = moves;
+        this.result = result;
+        this.match = match;
+    }
+
+    //the moves played on the match since it was created; the match is taken back to its first position and
+    //played forward again to find where the game started, and ends up exactly where it was
+    public static PgnGame fromMatch(ChessMatch match, Map<String, String> tags){
+        int[] moves = new int[match.getPlyCount()];
+        for (int i = 0; i < moves.length; i++){
+            moves[i] = match.getMove(i);
+        }
+        for (int i = 0; i < moves.length; i++){
+            match.undoLastMove();
+        }
+        String startFen = Fen.toFen(match);
+        for (int move : moves){
+            match.doMove(move);
+        }
+        match.updateGameState();
+
+        Map<String, String> allTags = new LinkedHashMap<>();
+        for (String tag : new String[]{"Event", "Site", "Date", "Round", "White", "Black", "Result"}){
+            allTags.put(tag, "?");
+        }
+        allTags.putAll(tags);
+        allTags.put("Result", result(match));
+        if (!startFen.equals(Fen.INITIAL_POSITION)){
+            allTags.put("SetUp", "1");
+            allTags.put("FEN", startFen);
+        }
+        return new PgnGame(allTags, moves, result(match), match);
+    }
+
+    private static String result(ChessMatch match){
+        switch (match.getGameState()){
+            case ONGOING:
+                return UNKNOWN;
+            case CHECKMATE:
+                return (match.getWinner() == Color.YELLOW) ? YELLOW_WINS : RED_WINS;
+            default:
+                return DRAW;
+        }
+    }
+
+    public Map<String, String> getTags(){
+        return Collections.unmodifiableMap(tags);
+    }
+
+    public String getTag(String name){
+        return tags.get(name);
+    }
+
+    public int getPlyCount(){
+        return moves.length;
+    }
+
+    public int getMove(int ply){
+        return moves[ply];
+    }
+
+    public int[] getMoves(){
+        return Arrays.copyOf(moves, moves.length);
+    }
+
+    public String getResult(){
+        return result;
+    }
+
+    //the match after the last move
+    public ChessMatch getMatch(){
+        return match;
+    }
+
+    public boolean isCheckmate(){
+        return match.getGameState() == GameState.CHECKMATE;
+    }
+
+    //a new match in the position the game started from
+    public ChessMatch startPosition(){
+        return startPosition(tags);
+    }
+
+    static ChessMatch startPosition(Map<String, String> tags){
+        String fen = tags.get("FEN");
+        return (fen != null) ? Fen.parse(fen) : new ChessMatch();
+    }
+}
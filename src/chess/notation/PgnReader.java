@@ -0,0 +1,337 @@
+package chess.notation;
+
+import chess.ChessException;
+import chess.ChessMatch;
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//reads PGN one game at a time through a fixed-size buffer, so the size of the file doesn't matter.
+//every move is replayed on a ChessMatch while it is read; comments, variations and NAGs are skipped
+public class PgnReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+
+    private final San san = new San();
+    private final Token token = new Token();
+    private byte[] value = new byte[64];
+    private int[] moves = new int[256];
+
+    private final long startTime = System.nanoTime();
+    private long bytesRead;
+    private long gamesRead;
+    private long pliesRead;
+
+    public PgnReader(InputStream in) {
+        this.in = in;
+    }
+
+    //the next game, or null at the end of the input. A game with an illegal or unreadable move is skipped up to
+    //its end and reported with a ChessException, so the following call continues with the next game
+    public PgnGame next() throws IOException {
+        Map<String, String> tags = new LinkedHashMap<>();
+        ChessMatch match = null;
+        int count = 0;
+        String error = null;
+        boolean inMoves = false;
+
+        while (true){
+            int c = skipWhitespace();
+            if (c < 0){
+                if (tags.isEmpty() && !inMoves){
+                    return null;
+                }
+                return finish(tags, match, count, PgnGame.UNKNOWN, error);
+            }
+            if (c == '['){
+                if (inMoves){
+                    //a game without a result, the tag belongs to the next one
+                    return finish(tags, match, count, PgnGame.UNKNOWN, error);
+                }
+                pos++;
+                readTag(tags);
+                continue;
+            }
+            inMoves = true;
+            if (c == '{'){
+                skipPast('}');
+                continue;
+            }
+            if (c == ';' || c == '%'){
+                skipPast('\n');
+                continue;
+            }
+            if (c == '('){
+                skipVariation();
+                continue;
+            }
+            if (c == ')' || c == '}' || c == ']'){
+                pos++; //stray closing bracket
+                continue;
+            }
+
+            readToken();
+            String result = result(token);
+            if (result != null){
+                return finish(tags, match, count, result, error);
+            }
+            if (token.charAt(0) == '$' || error != null){
+                continue;
+            }
+
+            //move numbers: "12." and "12..." alone or glued to the move ("12.e4")
+            int start = 0;
+            while (start < token.length() && Character.isDigit(token.charAt(start))){
+                start++;
+            }
+            if (start > 0 && start < token.length() && token.charAt(start) == '.'){
+                while (start < token.length() && token.charAt(start) == '.'){
+                    start++;
+                }
+            }else{
+                start = 0;
+            }
+            if (start == token.length()){
+                continue;
+            }
+
+            try {
+                if (match == null){
+                    match = PgnGame.startPosition(tags);
+                }
+                int move = san.parse(match, token, start, token.length());
+                match.doMove(move);
+                if (count == moves.length){
+                    moves = Arrays.copyOf(moves, count * 2);
+                }
+                moves[count++] = move;
+            } catch (ChessException e) {
+                error = "ply " + (count + 1) + ": " + e.getMessage();
+            }
+        }
+    }
+
+    private PgnGame finish(Map<String, String> tags, ChessMatch match, int count, String result, String error){
+        gamesRead++;
+        pliesRead += count;
+        if (error == null && match == null){
+            try {
+                match = PgnGame.startPosition(tags);
+            } catch (ChessException e) {
+                error = e.getMessage();
+            }
+        }
+        if (error != null){
+            throw new ChessException("Game " + gamesRead + ", " + error);
+        }
+        match.updateGameState();
+        return new PgnGame(tags, Arrays.copyOf(moves, count), result, match);
+    }
+
+    private static String result(CharSequence token){
+        if (token.length() == 1 && token.charAt(0) == '*') return PgnGame.UNKNOWN;
+        if (token.length() == 3 && token.charAt(1) == '-'){
+            if (token.charAt(0) == '1' && token.charAt(2) == '0') return PgnGame.YELLOW_WINS;
+            if (token.charAt(0) == '0' && token.charAt(2) == '1') return PgnGame.RED_WINS;
+        }
+        if (token.length() == 7 && PgnGame.DRAW.contentEquals(token)) return PgnGame.DRAW;
+        return null;
+    }
+
+    //[Name "value"], the value is utf-8 with \" and \\ escaped
+    private void readTag(Map<String, String> tags) throws IOException {
+        skipWhitespace();
+        token.clear();
+        int c;
+        while ((c = peek()) >= 0 && c != '"' && c != ']' && !isWhitespace(c)){
+            token.append(c);
+            pos++;
+        }
+        String name = token.toString();
+        c = skipWhitespace();
+        int length = 0;
+        if (c == '"'){
+            pos++;
+            while ((c = read()) >= 0 && c != '"'){
+                if (c == '\\'){
+                    c = read();
+                    if (c < 0){
+                        break;
+                    }
+                }
+                if (length == value.length){
+                    value = Arrays.copyOf(value, length * 2);
+                }
+                value[length++] = (byte) c;
+            }
+        }
+        skipPast(']');
+        if (!name.isEmpty()){
+            tags.put(name, new String(value, 0, length, StandardCharsets.UTF_8));
+        }
+    }
+
+    private void readToken() throws IOException {
+        token.clear();
+        int c;
+        while ((c = peek()) >= 0 && !isWhitespace(c) && "{}()[];".indexOf(c) < 0){
+            token.append(c);
+            pos++;
+        }
+    }
+
+    //variations can be nested and contain comments with parentheses
+    private void skipVariation() throws IOException {
+        int depth = 0;
+        int c;
+        while ((c = read()) >= 0){
+            if (c == '('){
+                depth++;
+            }else if (c == ')'){
+                if (--depth == 0){
+                    return;
+                }
+            }else if (c == '{'){
+                skipPast('}');
+            }
+        }
+    }
+
+    private void skipPast(int end) throws IOException {
+        int c;
+        while ((c = read()) >= 0 && c != end){
+        }
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c;
+        while ((c = peek()) >= 0 && isWhitespace(c)){
+            pos++;
+        }
+        return c;
+    }
+
+    private static boolean isWhitespace(int c){
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f';
+    }
+
+    private int peek() throws IOException {
+        if (pos == limit && !fill()){
+            return -1;
+        }
+        return buffer[pos] & 0xFF;
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()){
+            return -1;
+        }
+        return buffer[pos++] & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0){
+            return false;
+        }
+        pos = 0;
+        limit = n;
+        bytesRead += n;
+        return true;
+    }
+
+    //the bytes of the current token seen as latin-1 characters, so San can parse them without a String
+    private static final class Token implements CharSequence {
+        private byte[] bytes = new byte[32];
+        private int length;
+
+        void clear(){
+            length = 0;
+        }
+
+        void append(int c){
+            if (length == bytes.length){
+                bytes = Arrays.copyOf(bytes, length * 2);
+            }
+            bytes[length++] = (byte) c;
+        }
+
+        @Override
+        public int length(){
+            return length;
+        }
+
+        @Override
+        public char charAt(int index){
+            return (char) (bytes[index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end){
+            return new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public String toString(){
+            return new String(bytes, 0, length, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    public long getGamesRead(){
+        return gamesRead;
+    }
+
+    public long getPliesRead(){
+        return pliesRead;
+    }
+
+    public long getBytesRead(){
+        return bytesRead;
+    }
+
+    public long getGamesPerSecond(){
+        long millis = Math.max(1, (System.nanoTime() - startTime) / 1_000_000);
+        return gamesRead * 1000 / millis;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    //reads a whole file and prints the throughput
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1){
+            System.out.println("Usage: PgnReader file.pgn");
+            return;
+        }
+        long errors = 0;
+        long start = System.nanoTime();
+        try (PgnReader reader = new PgnReader(new FileInputStream(args[0]))){
+            while (true){
+                try {
+                    if (reader.next() == null){
+                        break;
+                    }
+                } catch (ChessException e) {
+                    errors++;
+                    System.out.println(e.getMessage());
+                }
+            }
+            long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            System.out.println("Games: " + reader.getGamesRead() + " (" + errors + " with errors), plies: " + reader.getPliesRead());
+            System.out.println("Time: " + millis + " ms, " + reader.getGamesPerSecond() + " games/s, "
+                    + (reader.getBytesRead() / 1000 / millis) + " MB/s");
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package chess.notation;
+
+import chess.ChessMatch;
+import chess.Color;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+//writes games in export format: tag pairs, then the movetext wrapped at 80 columns
+public class PgnWriter implements Closeable, Flushable {
+    private static final int LINE_LENGTH = 80;
+
+    private final Writer out;
+    private final San san = new San();
+    private final StringBuilder line = new StringBuilder(LINE_LENGTH + 16);
+    private final StringBuilder word = new StringBuilder(16);
+
+    public PgnWriter(Writer out) {
+        this.out = out;
+    }
+
+    public PgnWriter(OutputStream out) {
+        this(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16));
+    }
+
+    //the seven standard tags are filled with "?" when missing, and Result comes from the state of the match
+    public void write(ChessMatch match, Map<String, String> tags) throws IOException {
+        write(PgnGame.fromMatch(match, tags));
+    }
+
+    public void write(PgnGame game) throws IOException {
+        for (Map.Entry<String, String> tag : game.getTags().entrySet()){
+            out.write('[');
+            out.write(tag.getKey());
+            out.write(" \"");
+            out.write(tag.getValue().replace("\\", "\\\\").replace("\"", "\\\""));
+            out.write("\"]\n");
+        }
+        out.write('\n');
+
+        ChessMatch match = game.startPosition();
+        line.setLength(0);
+        for (int i = 0; i < game.getPlyCount(); i++){
+            int move = game.getMove(i);
+            word.setLength(0);
+            if (match.getCurrentPlayer() == Color.YELLOW){
+                word.append((match.getTurn() + 1) / 2).append(". ");
+            }else if (i == 0){
+                word.append((match.getTurn() + 1) / 2).append("... ");
+            }
+            san.append(match, move, word);
+            appendWord();
+            match.doMove(move);
+        }
+        word.setLength(0);
+        word.append(game.getResult());
+        appendWord();
+        out.write(line.toString());
+        out.write("\n\n");
+    }
+
+    private void appendWord() throws IOException {
+        if (line.length() > 0 && line.length() + 1 + word.length() > LINE_LENGTH){
+            out.write(line.toString());
+            out.write('\n');
+            line.setLength(0);
+        }
+        if (line.length() > 0){
+            line.append(' ');
+        }
+        line.append(word);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,212 @@
+package chess.notation;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Move;
+import chess.PieceType;
+
+//standard algebraic notation ("Nbd7", "exd5", "O-O", "e8=Q+") for the moves of a ChessMatch.
+//keeps a move buffer, so one instance should not be shared between threads
+public class San {
+    private static final char[] PIECE_LETTERS = {'P', 'N', 'B', 'R', 'Q', 'K'};
+    private static final PieceType[] TYPES = PieceType.values();
+
+    private final int[] moves = new int[ChessMatch.MAX_MOVES];
+
+    public int parse(ChessMatch match, CharSequence san){
+        return parse(match, san, 0, san.length());
+    }
+
+    //returns the legal move of the player to move written as san[start, end)
+    public int parse(ChessMatch match, CharSequence san, int start, int end){
+        int tokenEnd = end;
+        //check marks and annotations don't change the move
+        while (end > start && "+#!?".indexOf(san.charAt(end - 1)) >= 0){
+            end--;
+        }
+        if (end - start < 2){
+            throw error("Invalid move", san, start, end);
+        }
+
+        char first = san.charAt(start);
+        if (first == 'O' || first == '0'){
+            int length = end - start;
+            if (length == 3 || length == 5){
+                return findCastling(match, (length == 3) ? 6 : 2, san, start, end);
+            }
+            throw error("Invalid castling", san, start, end);
+        }
+
+        int i = start;
+        PieceType type = PieceType.PAWN;
+        int letter = indexOf(PIECE_LETTERS, first);
+        if (letter > 0){
+            type = TYPES[letter];
+            i++;
+        }
+
+        PieceType promotion = null;
+        char last = san.charAt(end - 1);
+        if (type == PieceType.PAWN && (last < '1' || last > '8')){
+            int index = indexOf(PIECE_LETTERS, Character.toUpperCase(last));
+            if (index < 1 || index > 4){
+                throw error("Invalid promotion", san, start, end);
+            }
+            promotion = TYPES[index];
+            end--;
+            if (end > i && san.charAt(end - 1) == '='){
+                end--;
+            }
+        }
+
+        if (end - i < 2){
+            throw error("Invalid move", san, start, end);
+        }
+        char targetColumn = san.charAt(end - 2);
+        char targetRow = san.charAt(end - 1);
+        if (targetColumn < 'a' || targetColumn > 'h' || targetRow < '1' || targetRow > '8'){
+            throw error("Invalid target square", san, start, tokenEnd);
+        }
+        int target = (8 - (targetRow - '0')) * 8 + (targetColumn - 'a');
+        end -= 2;
+
+        //what is left is the disambiguation, e.g. the "b" of "Nbd7" or the "e" of "exd5"
+        if (end > i && (san.charAt(end - 1) == 'x' || san.charAt(end - 1) == ':')){
+            end--;
+        }
+        int fromColumn = -1;
+        int fromRow = -1;
+        for (; i < end; i++){
+            char c = san.charAt(i);
+            if (c >= 'a' && c <= 'h'){
+                fromColumn = c - 'a';
+            }else if (c >= '1' && c <= '8'){
+                fromRow = 8 - (c - '0');
+            }else{
+                throw error("Invalid move", san, start, tokenEnd);
+            }
+        }
+
+        //only the pieces that could have written this move are generated
+        long sources = match.getBitboard(match.getCurrentPlayer(), type);
+        if (fromColumn >= 0){
+            sources &= 0x0101010101010101L << fromColumn;
+        }
+        if (fromRow >= 0){
+            sources &= 0xFFL << (fromRow * 8);
+        }
+        int count = match.generateMoves(sources, moves);
+        int found = 0;
+        for (int m = 0; m < count; m++){
+            int move = moves[m];
+            if (Move.to(move) != target){
+                continue;
+            }
+            //a promotion without the piece letter is taken as a queen
+            PieceType movePromotion = Move.promotion(move);
+            if (movePromotion != null && movePromotion != ((promotion == null) ? PieceType.QUEEN : promotion)){
+                continue;
+            }
+            if (movePromotion == null && promotion != null){
+                continue;
+            }
+            if (found != 0){
+                throw error("Ambiguous move", san, start, tokenEnd);
+            }
+            found = move;
+        }
+        if (found == 0){
+            throw error("Illegal move", san, start, tokenEnd);
+        }
+        return found;
+    }
+
+    private int findCastling(ChessMatch match, int targetColumn, CharSequence san, int start, int end){
+        int count = match.generateMoves(match.getBitboard(match.getCurrentPlayer(), PieceType.KING), moves);
+        for (int i = 0; i < count; i++){
+            if (Move.isCastling(moves[i]) && (Move.to(moves[i]) & 7) == targetColumn){
+                return moves[i];
+            }
+        }
+        throw error("Illegal move", san, start, end);
+    }
+
+    public String toSan(ChessMatch match, int move){
+        return append(match, move, new StringBuilder(8)).toString();
+    }
+
+    //the move must be legal in the current position; it is played and taken back to find the check mark
+    public StringBuilder append(ChessMatch match, int move, StringBuilder sb){
+        int from = Move.from(move);
+        int to = Move.to(move);
+        if (Move.isCastling(move)){
+            sb.append(((to & 7) == 6) ? "O-O" : "O-O-O");
+        }else{
+            PieceType type = match.getPiece(from).getType();
+            if (type == PieceType.PAWN){
+                if (Move.isCapture(move)){
+                    sb.append((char) ('a' + (from & 7))).append('x');
+                }
+                sb.append(Move.squareName(to));
+                PieceType promotion = Move.promotion(move);
+                if (promotion != null){
+                    sb.append('=').append(PIECE_LETTERS[promotion.ordinal()]);
+                }
+            }else{
+                sb.append(PIECE_LETTERS[type.ordinal()]);
+                appendDisambiguation(match, type, from, to, sb);
+                if (Move.isCapture(move)){
+                    sb.append('x');
+                }
+                sb.append(Move.squareName(to));
+            }
+        }
+
+        match.doMove(move);
+        if (match.getCheck()){
+            sb.append((match.generateMoves(moves) == 0) ? '#' : '+');
+        }
+        match.undoLastMove();
+        return sb;
+    }
+
+    //file if it tells the pieces apart, otherwise the row, otherwise both
+    private void appendDisambiguation(ChessMatch match, PieceType type, int from, int to, StringBuilder sb){
+        int count = match.generateMoves(match.getBitboard(match.getCurrentPlayer(), type), moves);
+        boolean ambiguous = false;
+        boolean sameColumn = false;
+        boolean sameRow = false;
+        for (int i = 0; i < count; i++){
+            int other = Move.from(moves[i]);
+            if (other == from || Move.to(moves[i]) != to){
+                continue;
+            }
+            ambiguous = true;
+            sameColumn |= (other & 7) == (from & 7);
+            sameRow |= (other >>> 3) == (from >>> 3);
+        }
+        if (!ambiguous){
+            return;
+        }
+        if (!sameColumn){
+            sb.append((char) ('a' + (from & 7)));
+        }else if (!sameRow){
+            sb.append((char) ('8' - (from >>> 3)));
+        }else{
+            sb.append(Move.squareName(from));
+        }
+    }
+
+    private static int indexOf(char[] letters, char c){
+        for (int i = 0; i < letters.length; i++){
+            if (letters[i] == c){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static ChessException error(String message, CharSequence san, int start, int end){
+        return new ChessException(message + ": " + san.subSequence(start, end));
+    }
+}
@@ -1,10 +1,12 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
+import chess.Attacks;
+import chess.ChessBoard;
 import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceType;
 
 public class King extends ChessPiece {
     private ChessMatch chessMatch;
@@ -15,86 +17,40 @@ public class King extends ChessPiece {
     }
 
     @Override
-    public String toString(){
-        return "K";
+    public PieceType getType(){
+        return PieceType.KING;
     }
 
-    private boolean canMove(Position position){
-        ChessPiece p = (ChessPiece) getBoard().piece(position);
-        return p == null || p.getColor() != getColor();
-    }
-
-    private boolean testRookCastling(Position position){
-        ChessPiece p = (ChessPiece)getBoard().piece(position);
-        return p != null && p instanceof Rook && p.getColor() == getColor() && p.getMoveCount() == 0;
+    @Override
+    public String toString(){
+        return "K";
     }
 
     @Override
-    public boolean[][] possibleMoves() {
-        boolean[][]mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
-
-        Position p = new Position(0,0);
-
-        //above
-        p.setValues(position.getRow() - 1, position.getColumn());
-        if(getBoard().positionExists(p) && canMove(p)){
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-        //below
-        p.setValues(position.getRow() + 1, position.getColumn());
-        if(getBoard().positionExists(p) && canMove(p)){
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-        //left
-        p.setValues(position.getRow(), position.getColumn() - 1);
-        if(getBoard().positionExists(p) && canMove(p)){
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-        //right
-        p.setValues(position.getRow(), position.getColumn() + 1);
-        if(getBoard().positionExists(p) && canMove(p)){
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-        //top/left
-        p.setValues(position.getRow() - 1, position.getColumn() - 1);
-        if(getBoard().positionExists(p) && canMove(p)){
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-        //top/right
-        p.setValues(position.getRow() - 1, position.getColumn() + 1);
-        if(getBoard().positionExists(p) && canMove(p)){
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-        //below/left
-        p.setValues(position.getRow() + 1, position.getColumn() - 1);
-        if(getBoard().positionExists(p) && canMove(p)){
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-        //below/right
-        p.setValues(position.getRow() + 1, position.getColumn() + 1);
-        if(getBoard().positionExists(p) && canMove(p)){
-            mat[p.getRow()][p.getColumn()] = true;
-        }
+    public long possibleMovesBitboard() {
+        ChessBoard board = getChessBoard();
+        int square = getSquare();
+        long mat = Attacks.kingAttacks(square) & ~board.getOccupancy(getColor());
 
         // #specialmove castling
-        if (getMoveCount() == 0 && !chessMatch.getCheck()) {
-            // #specialmove castling kingside rook
-            Position posT1 = new Position(position.getRow(), position.getColumn() + 3);
-            if (testRookCastling(posT1)) {
-                Position p1 = new Position(position.getRow(), position.getColumn() + 1);
-                Position p2 = new Position(position.getRow(), position.getColumn() + 2);
-                if (getBoard().piece(p1) == null && getBoard().piece(p2) == null) {
-                    mat[position.getRow()][position.getColumn() + 2] = true;
-                }
-            }
-            // #specialmove castling queenside rook
-            Position posT2 = new Position(position.getRow(), position.getColumn() - 4);
-            if (testRookCastling(posT2)) {
-                Position p1 = new Position(position.getRow(), position.getColumn() - 1);
-                Position p2 = new Position(position.getRow(), position.getColumn() - 2);
-                Position p3 = new Position(position.getRow(), position.getColumn() - 3);
-                if (getBoard().piece(p1) == null && getBoard().piece(p2) == null && getBoard().piece(p3) == null) {
-                    mat[position.getRow()][position.getColumn() - 2] = true;
+        //the rights of the match say the king and rook never moved; the king can't leave, cross or land on
+        //an attacked square
+        int rights = chessMatch.getCastlingRights() >>> ((getColor() == Color.YELLOW) ? 0 : 2) & 3;
+        if (rights != 0) {
+            long occupancy = board.getOccupancy();
+            boolean kingside = (rights & 1) != 0 && (occupancy & (0b11L << (square + 1))) == 0;
+            boolean queenside = (rights & 2) != 0 && (occupancy & (0b111L << (square - 3))) == 0;
+            if (kingside || queenside) {
+                Color opponent = (getColor() == Color.YELLOW) ? Color.RED : Color.YELLOW;
+                if (!board.isAttacked(square, opponent)) {
+                    // #specialmove castling kingside rook
+                    if (kingside && !board.isAttacked(square + 1, opponent) && !board.isAttacked(square + 2, opponent)) {
+                        mat |= 1L << (square + 2);
+                    }
+                    // #specialmove castling queenside rook
+                    if (queenside && !board.isAttacked(square - 1, opponent) && !board.isAttacked(square - 2, opponent)) {
+                        mat |= 1L << (square - 2);
+                    }
                 }
             }
         }
@@ -1,10 +1,12 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
+import chess.Attacks;
+import chess.ChessBoard;
 import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceType;
 
 public class Pawn extends ChessPiece {
     private ChessMatch chessMatch;
@@ -14,77 +16,45 @@ public class Pawn extends ChessPiece {
     }
 
     @Override
-    public boolean[][] possibleMoves() {
-        boolean[][]mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
-
-        Position p = new Position(0,0);
+    public PieceType getType(){
+        return PieceType.PAWN;
+    }
 
-        if (getColor() == Color.YELLOW) {
-            p.setValues(position.getRow() - 1, position.getColumn());
-            if (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-                mat[p.getRow()][p.getColumn()] = true;
-            }
-            p.setValues(position.getRow() - 2, position.getColumn());
-            Position p2 = new Position(position.getRow() - 1, position.getColumn());
-            if (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p) && getBoard().positionExists(p2) && !getBoard().thereIsAPiece(p2) && getMoveCount() == 0) {
-                mat[p.getRow()][p.getColumn()] = true;
-            }
-            p.setValues(position.getRow() - 1, position.getColumn() - 1);
-            if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-                mat[p.getRow()][p.getColumn()] = true;
-            }
-            p.setValues(position.getRow() - 1, position.getColumn() + 1);
-            if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-                mat[p.getRow()][p.getColumn()] = true;
+    @Override
+    public long possibleMovesBitboard() {
+        ChessBoard board = getChessBoard();
+        int square = getSquare();
+        long empty = ~board.getOccupancy();
+        //yellow moves towards row 0, red towards row 7
+        int forward = (getColor() == Color.YELLOW) ? -8 : 8;
+        long mat = 0L;
+
+        int oneStep = square + forward;
+        if (oneStep >= 0 && oneStep < 64 && (empty & 1L << oneStep) != 0) {
+            mat |= 1L << oneStep;
+            int twoSteps = oneStep + forward;
+            if (getMoveCount() == 0 && twoSteps >= 0 && twoSteps < 64 && (empty & 1L << twoSteps) != 0) {
+                mat |= 1L << twoSteps;
             }
+        }
 
-            //specialmove en passant yellow
-            if (position.getRow() == 3){
-                Position left = new Position(position.getRow(), position.getColumn() - 1);
-                if (getBoard().positionExists(left) && isThereOpponentPiece(left) && getBoard().piece(left) == chessMatch.getEnPassantVulnerable()){
-                    mat[left.getRow() - 1][left.getColumn()] = true;
-                }
-                Position right = new Position(position.getRow(), position.getColumn() + 1);
-                if (getBoard().positionExists(right) && isThereOpponentPiece(right) && getBoard().piece(right) == chessMatch.getEnPassantVulnerable()){
-                    mat[right.getRow() - 1][right.getColumn()] = true;
-                }
-            }
+        long attacks = Attacks.pawnAttacks(getColor(), square);
+        mat |= attacks & board.getOccupancy(opponentColor());
 
+        // #specialmove en passant
+        //the square is on row 2 after a red double step and on row 5 after a yellow one
+        int target = chessMatch.getEnPassantSquare();
+        if (target >= 0 && target >>> 3 == ((getColor() == Color.YELLOW) ? 2 : 5) && (empty & attacks & 1L << target) != 0) {
+            mat |= 1L << target;
         }
-        else {
-            p.setValues(position.getRow() + 1, position.getColumn());
-            if (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-                mat[p.getRow()][p.getColumn()] = true;
-            }
-            p.setValues(position.getRow() + 2, position.getColumn());
-            Position p2 = new Position(position.getRow() + 1, position.getColumn());
-            if (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p) && getBoard().positionExists(p2) && !getBoard().thereIsAPiece(p2) && getMoveCount() == 0) {
-                mat[p.getRow()][p.getColumn()] = true;
-            }
-            p.setValues(position.getRow() + 1, position.getColumn() - 1);
-            if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-                mat[p.getRow()][p.getColumn()] = true;
-            }
-            p.setValues(position.getRow() + 1, position.getColumn() + 1);
-            if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-                mat[p.getRow()][p.getColumn()] = true;
-            }
 
-            //specialmove en passant red
-            if (position.getRow() == 4){
-                Position left = new Position(position.getRow(), position.getColumn() - 1);
-                if (getBoard().positionExists(left) && isThereOpponentPiece(left) && getBoard().piece(left) == chessMatch.getEnPassantVulnerable()){
-                    mat[left.getRow() + 1][left.getColumn()] = true;
-                }
-                Position right = new Position(position.getRow(), position.getColumn() + 1);
-                if (getBoard().positionExists(right) && isThereOpponentPiece(right) && getBoard().piece(right) == chessMatch.getEnPassantVulnerable()){
-                    mat[right.getRow() + 1][right.getColumn()] = true;
-                }
-            }
-        }
         return mat;
     }
 
+    private Color opponentColor(){
+        return (getColor() == Color.YELLOW) ? Color.RED : Color.YELLOW;
+    }
+
     @Override
     public String toString(){
         return "P";
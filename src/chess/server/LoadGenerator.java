@@ -0,0 +1,169 @@
+package chess.server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+//plays random games on many sessions at once, each client on its own virtual thread, and reports moves per
+//second with the latency of the move command. "local" talks to MatchSession directly, without the network
+public class LoadGenerator {
+    //latency histogram in steps of 10 microseconds up to one second, the last bucket takes everything slower
+    private static final int BUCKET_NANOS = 10_000;
+    private static final int BUCKETS = 100_001;
+
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder games = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private volatile boolean running = true;
+
+    private interface Connection extends AutoCloseable {
+        String send(String command) throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private static Connection local(){
+        MatchSession session = new MatchSession();
+        return new Connection() {
+            @Override
+            public String send(String command){
+                return session.handle(command);
+            }
+
+            @Override
+            public void close(){
+            }
+        };
+    }
+
+    private static Connection remote(String host, int port) throws IOException {
+        Socket socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+        Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII));
+        return new Connection() {
+            @Override
+            public String send(String command) throws IOException {
+                out.write(command);
+                out.write('\n');
+                out.flush();
+                String response = in.readLine();
+                if (response == null){
+                    throw new IOException("Connection closed by the server");
+                }
+                return response;
+            }
+
+            @Override
+            public void close() throws IOException {
+                socket.close();
+            }
+        };
+    }
+
+    private void play(Connection connection) throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        connection.send("new");
+        while (running){
+            String legal = connection.send("moves");
+            String[] list = legal.split(" ");
+            if (list.length < 2){
+                connection.send("new");
+                continue;
+            }
+            String move = list[1 + random.nextInt(list.length - 1)];
+            long start = System.nanoTime();
+            String response = connection.send("move " + move);
+            long nanos = System.nanoTime() - start;
+            histogram.incrementAndGet((int) Math.min(BUCKETS - 1, nanos / BUCKET_NANOS));
+            moves.increment();
+            if (!response.equals("ok ONGOING")){
+                if (response.startsWith("error")){
+                    errors.increment();
+                }
+                games.increment();
+                connection.send("new");
+            }
+        }
+        connection.send("quit");
+    }
+
+    //the latency under which the given fraction of the moves were answered, in microseconds
+    private long percentile(double fraction){
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++){
+            total += histogram.get(i);
+        }
+        long rank = (long) Math.ceil(total * fraction);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++){
+            seen += histogram.get(i);
+            if (seen >= rank && seen > 0){
+                return (i + 1) * (BUCKET_NANOS / 1000);
+            }
+        }
+        return 0;
+    }
+
+    public void run(String target, int clients, int seconds) throws InterruptedException {
+        List<Thread> threads = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++){
+            threads.add(Thread.ofVirtual().start(() -> {
+                try (Connection connection = target.equals("local") ? local() : remote(host(target), port(target))){
+                    play(connection);
+                } catch (IOException e) {
+                    errors.increment();
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        }
+
+        long start = System.nanoTime();
+        for (int second = 1; second <= seconds; second++){
+            Thread.sleep(1000);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            System.out.println(second + "s: " + moves.sum() * 1000 / Math.max(1, millis) + " moves/s, p99 " + percentile(0.99) + " us");
+        }
+        running = false;
+        for (Thread thread : threads){
+            thread.join();
+        }
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        System.out.println("Clients: " + clients + ", moves: " + moves.sum() + ", games: " + games.sum() + ", errors: " + errors.sum());
+        System.out.println("Throughput: " + moves.sum() * 1000 / millis + " moves/s");
+        System.out.println("Latency: p50 " + percentile(0.5) + " us, p99 " + percentile(0.99) + " us, p99.9 " + percentile(0.999) + " us");
+    }
+
+    private static String host(String target){
+        int colon = target.lastIndexOf(':');
+        return (colon < 0) ? "localhost" : target.substring(0, colon);
+    }
+
+    private static int port(String target){
+        return Integer.parseInt(target.substring(target.lastIndexOf(':') + 1));
+    }
+
+    //target: "local", "host:port" or just the port on localhost
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 1){
+            System.out.println("Usage: LoadGenerator local|host:port [clients] [seconds]");
+            return;
+        }
+        int clients = (args.length > 1) ? Integer.parseInt(args[1]) : 1000;
+        int seconds = (args.length > 2) ? Integer.parseInt(args[2]) : 10;
+        new LoadGenerator().run(args[0], clients, seconds);
+    }
+}
@@ -0,0 +1,113 @@
+package chess.server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+//headless server for many matches at once over a line-based TCP protocol (see MatchSession). Every connection
+//gets its own virtual thread, which blocks on the socket without holding a platform thread, so tens of
+//thousands of clients cost little more than their matches
+public class MatchServer implements Closeable {
+    private final ServerSocket serverSocket;
+    private final ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    private final LongAdder totalSessions = new LongAdder();
+    private final LongAdder totalMoves = new LongAdder();
+    private volatile boolean running;
+
+    //port 0 picks a free port, see getPort()
+    public MatchServer(int port) throws IOException {
+        serverSocket = new ServerSocket(port, 4096, InetAddress.getLoopbackAddress());
+    }
+
+    public void start(){
+        running = true;
+        Thread.ofVirtual().name("match-server-accept").start(this::acceptLoop);
+    }
+
+    private void acceptLoop(){
+        while (running){
+            try {
+                Socket socket = serverSocket.accept();
+                sessions.submit(() -> serve(socket));
+            } catch (IOException e) {
+                if (running){
+                    System.err.println("Accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket){
+        activeSessions.incrementAndGet();
+        totalSessions.increment();
+        MatchSession session = new MatchSession();
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII))){
+            socket.setTcpNoDelay(true);
+            String line;
+            while (!session.isClosed() && (line = in.readLine()) != null){
+                out.write(session.handle(line));
+                out.write('\n');
+                out.flush();
+            }
+        } catch (SocketException e) {
+            //the client went away
+        } catch (IOException e) {
+            System.err.println("Session failed: " + e.getMessage());
+        } finally {
+            totalMoves.add(session.getMovesPlayed());
+            activeSessions.decrementAndGet();
+        }
+    }
+
+    public int getPort(){
+        return serverSocket.getLocalPort();
+    }
+
+    public int getActiveSessions(){
+        return activeSessions.get();
+    }
+
+    public long getTotalSessions(){
+        return totalSessions.sum();
+    }
+
+    //moves of the sessions that have ended
+    public long getTotalMoves(){
+        return totalMoves.sum();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        sessions.shutdownNow();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : 7878;
+        MatchServer server = new MatchServer(port);
+        server.start();
+        System.out.println("Listening on port " + server.getPort());
+        while (true){
+            Thread.sleep(10_000);
+            System.out.println("Sessions: " + server.getActiveSessions() + " active, " + server.getTotalSessions()
+                    + " total, moves: " + server.getTotalMoves());
+        }
+    }
+}
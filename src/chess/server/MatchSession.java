@@ -0,0 +1,129 @@
+package chess.server;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Fen;
+import chess.GameState;
+import chess.Move;
+import chess.PieceType;
+
+//one client and its match. The match is only touched by the thread running the session, so nothing is locked.
+//commands, one per line, each answered with one line starting with "ok" or "error":
+//  new [fen]        starts a match, from the initial position or the FEN
+//  move e2e4        plays a move in coordinate notation (e7e8q for a promotion), answers with the game state
+//  moves            the legal moves of the player to move
+//  state            FEN, game state and "check" when the player to move is in check
+//  undo             takes back the last move
+//  redo             plays again the last move taken back
+//  quit             ends the session
+public class MatchSession {
+    private static final PieceType[] TYPES = PieceType.values();
+
+    private ChessMatch match = new ChessMatch();
+    private final int[] moves = new int[ChessMatch.MAX_MOVES];
+    private final StringBuilder response = new StringBuilder(256);
+    private long movesPlayed;
+    private boolean closed;
+
+    public String handle(String command){
+        response.setLength(0);
+        try {
+            execute(command.trim());
+        } catch (ChessException | IllegalArgumentException e) {
+            response.setLength(0);
+            response.append("error ").append(e.getMessage());
+        }
+        return response.toString();
+    }
+
+    private void execute(String command){
+        int space = command.indexOf(' ');
+        String name = (space < 0) ? command : command.substring(0, space);
+        String argument = (space < 0) ? "" : command.substring(space + 1).trim();
+        switch (name){
+            case "new":
+                match = argument.isEmpty() ? new ChessMatch() : Fen.parse(argument);
+                response.append("ok ");
+                Fen.append(match, response);
+                break;
+            case "move":
+                move(argument);
+                break;
+            case "moves":
+                response.append("ok");
+                int count = match.generateMoves(moves);
+                for (int i = 0; i < count; i++){
+                    response.append(' ').append(Move.toString(moves[i]));
+                }
+                break;
+            case "state":
+                response.append("ok ");
+                Fen.append(match, response).append(' ').append(match.getGameState());
+                if (match.getCheck()){
+                    response.append(" check");
+                }
+                break;
+            case "undo":
+                response.append("ok ").append(Move.toString(match.takeBack()));
+                break;
+            case "redo":
+                response.append("ok ").append(Move.toString(match.redo())).append(' ').append(match.getGameState());
+                break;
+            case "quit":
+                closed = true;
+                response.append("ok");
+                break;
+            default:
+                throw new ChessException("Unknown command: " + name);
+        }
+    }
+
+    private void move(String text){
+        if (match.getGameState() != GameState.ONGOING){
+            throw new ChessException("The game is over: " + match.getGameState());
+        }
+        if (text.length() < 4 || text.length() > 5){
+            throw new ChessException("Invalid move: " + text);
+        }
+        int from = square(text, 0);
+        int to = square(text, 2);
+        PieceType promotion = PieceType.QUEEN;
+        if (text.length() == 5){
+            int index = "nbrq".indexOf(Character.toLowerCase(text.charAt(4)));
+            if (index < 0){
+                throw new ChessException("Invalid promotion: " + text);
+            }
+            promotion = TYPES[PieceType.KNIGHT.ordinal() + index];
+        }
+
+        //only the moves of the piece on the source square are generated
+        int count = match.generateMoves(1L << from, moves);
+        for (int i = 0; i < count; i++){
+            int move = moves[i];
+            if (Move.to(move) == to && (Move.promotion(move) == null || Move.promotion(move) == promotion)){
+                match.performMove(move);
+                movesPlayed++;
+                response.append("ok ").append(match.getGameState());
+                return;
+            }
+        }
+        throw new ChessException("Illegal move: " + text);
+    }
+
+    private static int square(String text, int index){
+        char column = text.charAt(index);
+        char row = text.charAt(index + 1);
+        if (column < 'a' || column > 'h' || row < '1' || row > '8'){
+            throw new ChessException("Invalid square: " + text.substring(index, index + 2));
+        }
+        return (8 - (row - '0')) * 8 + (column - 'a');
+    }
+
+    public boolean isClosed(){
+        return closed;
+    }
+
+    public long getMovesPlayed(){
+        return movesPlayed;
+    }
+}
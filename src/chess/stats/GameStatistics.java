@@ -0,0 +1,171 @@
+package chess.stats;
+
+import chess.ChessMatch;
+import chess.Color;
+import chess.GameState;
+import chess.Move;
+import chess.PieceType;
+import chess.archive.ArchivedGame;
+
+import java.io.PrintStream;
+
+//totals over a set of games. Each thread fills its own instance and the instances are merged at the end,
+//so nothing is shared while the games are replayed
+public class GameStatistics {
+    //positions reached in the first plies of a game count as the opening
+    public static final int OPENING_PLIES = 12;
+
+    private static final GameState[] STATES = GameState.values();
+    private static final PieceType[] TYPES = PieceType.values();
+
+    private long games;
+    private long plies;
+    private long longestGame;
+    private long captures;
+    private long enPassantCaptures;
+    private long castlings;
+    private long promotions;
+    private final long[] gameStates = new long[STATES.length];
+    private final long[] matesByPiece = new long[TYPES.length];
+    private long backRankMates;
+    private final PositionCounter openings = new PositionCounter();
+
+    private final long[] openingKeys = new long[OPENING_PLIES]; //positions of the current game already counted
+
+    public void add(ArchivedGame game){
+        ChessMatch match = game.startPosition();
+        int plyCount = game.getPlyCount();
+        int lastMove = 0;
+        int openingCount = 0;
+        for (int i = 0; i < plyCount; i++){
+            int move = game.getMove(i);
+            if (Move.isCapture(move)) captures++;
+            if (Move.isEnPassant(move)) enPassantCaptures++;
+            if (Move.isCastling(move)) castlings++;
+            if (Move.promotion(move) != null) promotions++;
+            match.doMove(move);
+            if (i < OPENING_PLIES){
+                openingCount = addOpening(match.getZobristKey(), openingCount);
+            }
+            lastMove = move;
+        }
+        match.updateGameState();
+
+        games++;
+        plies += plyCount;
+        longestGame = Math.max(longestGame, plyCount);
+        gameStates[match.getGameState().ordinal()]++;
+        if (match.getGameState() == GameState.CHECKMATE && lastMove != 0){
+            matesByPiece[match.getPiece(Move.to(lastMove)).getType().ordinal()]++;
+            //the mated king is still on the row it started on
+            int king = Long.numberOfTrailingZeros(match.getBitboard(match.getCurrentPlayer(), PieceType.KING));
+            if (king >>> 3 == ((match.getCurrentPlayer() == Color.YELLOW) ? 7 : 0)){
+                backRankMates++;
+            }
+        }
+    }
+
+    //a position repeated inside one game's opening (knights going back and forth) counts once for that game
+    private int addOpening(long key, int count){
+        for (int i = 0; i < count; i++){
+            if (openingKeys[i] == key){
+                return count;
+            }
+        }
+        openingKeys[count] = key;
+        openings.add(key, 1);
+        return count + 1;
+    }
+
+    public GameStatistics merge(GameStatistics other){
+        games += other.games;
+        plies += other.plies;
+        longestGame = Math.max(longestGame, other.longestGame);
+        captures += other.captures;
+        enPassantCaptures += other.enPassantCaptures;
+        castlings += other.castlings;
+        promotions += other.promotions;
+        for (int i = 0; i < gameStates.length; i++){
+            gameStates[i] += other.gameStates[i];
+        }
+        for (int i = 0; i < matesByPiece.length; i++){
+            matesByPiece[i] += other.matesByPiece[i];
+        }
+        backRankMates += other.backRankMates;
+        openings.addAll(other.openings);
+        return this;
+    }
+
+    public long getGames(){
+        return games;
+    }
+
+    public long getPlies(){
+        return plies;
+    }
+
+    public double getAverageLength(){
+        return (games == 0) ? 0 : (double) plies / games;
+    }
+
+    public long getLongestGame(){
+        return longestGame;
+    }
+
+    public long getCaptures(){
+        return captures;
+    }
+
+    public long getEnPassantCaptures(){
+        return enPassantCaptures;
+    }
+
+    public long getCastlings(){
+        return castlings;
+    }
+
+    public long getPromotions(){
+        return promotions;
+    }
+
+    public long getGames(GameState state){
+        return gameStates[state.ordinal()];
+    }
+
+    //checkmates by the type of the piece that made the last move
+    public long getMates(PieceType type){
+        return matesByPiece[type.ordinal()];
+    }
+
+    public long getBackRankMates(){
+        return backRankMates;
+    }
+
+    //how many games went through the position with this key in their first OPENING_PLIES plies
+    public long getOpeningFrequency(long zobristKey){
+        return openings.get(zobristKey);
+    }
+
+    public long[] getMostFrequentOpenings(int n){
+        return openings.top(n);
+    }
+
+    public void print(PrintStream out){
+        out.println("Games: " + games + ", plies: " + plies + ", average length: " + String.format("%.1f", getAverageLength())
+                + ", longest: " + longestGame);
+        out.println("Captures: " + captures + " (en passant " + enPassantCaptures + "), castlings: " + castlings
+                + ", promotions: " + promotions);
+        for (GameState state : STATES){
+            out.println("  " + state + ": " + gameStates[state.ordinal()]);
+        }
+        out.print("Checkmates by piece:");
+        for (PieceType type : TYPES){
+            out.print(" " + type + "=" + matesByPiece[type.ordinal()]);
+        }
+        out.println(", back rank: " + backRankMates);
+        out.println("Distinct opening positions: " + openings.size());
+        for (long key : getMostFrequentOpenings(10)){
+            out.println("  " + String.format("%016x", key) + ": " + openings.get(key));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package chess.stats;
+
+//open addressing map from a zobrist key to a count, without boxing every key the way a HashMap<Long, Long> would
+class PositionCounter {
+    private long[] keys = new long[1024];
+    private long[] counts = new long[1024];
+    private int size;
+    private long zeroCount; //key 0 marks the empty slots, so it is counted apart
+
+    void add(long key, long count){
+        if (key == 0){
+            zeroCount += count;
+            return;
+        }
+        int mask = keys.length - 1;
+        int i = (int) (key ^ key >>> 32) & mask;
+        while (keys[i] != 0 && keys[i] != key){
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == 0){
+            keys[i] = key;
+            counts[i] = count;
+            if (++size * 2 > keys.length){
+                grow();
+            }
+            return;
+        }
+        counts[i] += count;
+    }
+
+    long get(long key){
+        if (key == 0){
+            return zeroCount;
+        }
+        int mask = keys.length - 1;
+        int i = (int) (key ^ key >>> 32) & mask;
+        while (keys[i] != 0){
+            if (keys[i] == key){
+                return counts[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return 0;
+    }
+
+    int size(){
+        return size + ((zeroCount > 0) ? 1 : 0);
+    }
+
+    void addAll(PositionCounter other){
+        for (int i = 0; i < other.keys.length; i++){
+            if (other.keys[i] != 0){
+                add(other.keys[i], other.counts[i]);
+            }
+        }
+        zeroCount += other.zeroCount;
+    }
+
+    //the n keys with the highest counts, most frequent first (insertion into a short sorted list)
+    long[] top(int n){
+        long[] topKeys = new long[Math.min(n, size)];
+        long[] topCounts = new long[topKeys.length];
+        if (topKeys.length == 0){
+            return topKeys;
+        }
+        int found = 0;
+        for (int i = 0; i < keys.length; i++){
+            if (keys[i] == 0 || (found == topKeys.length && counts[i] <= topCounts[found - 1])){
+                continue;
+            }
+            int j = (found < topKeys.length) ? found++ : found - 1;
+            while (j > 0 && topCounts[j - 1] < counts[i]){
+                topKeys[j] = topKeys[j - 1];
+                topCounts[j] = topCounts[j - 1];
+                j--;
+            }
+            topKeys[j] = keys[i];
+            topCounts[j] = counts[i];
+        }
+        return topKeys;
+    }
+
+    private void grow(){
+        long[] oldKeys = keys;
+        long[] oldCounts = counts;
+        keys = new long[oldKeys.length * 2];
+        counts = new long[oldKeys.length * 2];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++){
+            if (oldKeys[i] != 0){
+                add(oldKeys[i], oldCounts[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package chess.stats;
+
+import chess.archive.ArchivedGame;
+import chess.archive.GameArchive;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+
+//replays every game of an archive on all cores. The games are split by index between fork/join tasks, every
+//task accumulates into its own GameStatistics and the partial results are merged pairwise as the tasks join
+public class StatisticsPipeline {
+    private final int parallelism;
+
+    public StatisticsPipeline() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public StatisticsPipeline(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public GameStatistics run(GameArchive archive){
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            //a parallel stream started from inside the pool runs on the pool's threads
+            return pool.submit(() -> LongStream.range(0, archive.size())
+                    .parallel()
+                    .collect(Partial::new,
+                            (partial, index) -> partial.statistics.add(archive.read(index, partial.game)),
+                            (partial, other) -> partial.statistics.merge(other.statistics)))
+                    .get().statistics;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while replaying the archive", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Replay failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    //the totals of one task and the game view it reads the archive into, reused for every game of the task
+    private static final class Partial {
+        final GameStatistics statistics = new GameStatistics();
+        final ArchivedGame game = new ArchivedGame();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1){
+            System.out.println("Usage: StatisticsPipeline file.archive [threads]");
+            return;
+        }
+        StatisticsPipeline pipeline = (args.length > 1) ? new StatisticsPipeline(Integer.parseInt(args[1])) : new StatisticsPipeline();
+        try (GameArchive archive = new GameArchive(Paths.get(args[0]))){
+            long start = System.nanoTime();
+            GameStatistics statistics = pipeline.run(archive);
+            long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            statistics.print(System.out);
+            System.out.println("Time: " + millis + " ms, " + (statistics.getGames() * 1000 / millis) + " games/s on "
+                    + pipeline.parallelism + " threads");
+        }
+    }
+}
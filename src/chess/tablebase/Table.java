@@ -0,0 +1,187 @@
+package chess.tablebase;
+
+import chess.Attacks;
+import chess.Color;
+import chess.PieceType;
+
+import java.nio.ByteBuffer;
+
+//one material combination, e.g. "KQvKR": the stronger side first, and it plays as yellow. A position is stored as
+//the squares of its pieces in table order (strong king, strong pieces, weak king, weak pieces). Without pawns the
+//strong king is moved into the a1-d1-d4 triangle by symmetry: 10 * 64^(pieces-1) entries for each side to move.
+//Pawns only allow the left-right mirror, so the first pawn is put on the files a-d: 24 * 64^(pieces-1) entries.
+//entry: >0 the side to move mates in that many plies, <0 it is mated in (-entry - 1) plies, 0 draw
+final class Table {
+    private static final PieceType[] TYPES = PieceType.values();
+    private static final int[] TRIANGLE_INDEX = new int[64];
+    private static final int[] TRIANGLE_SQUARES = new int[10];
+    private static final int[] PAWN_INDEX = new int[64];
+    private static final int[] PAWN_SQUARES = new int[24];
+
+    static {
+        java.util.Arrays.fill(TRIANGLE_INDEX, -1);
+        int i = 0;
+        for (int file = 0; file < 4; file++){
+            for (int rank = 0; rank <= file; rank++){
+                int square = (7 - rank) * 8 + file;
+                TRIANGLE_INDEX[square] = i;
+                TRIANGLE_SQUARES[i++] = square;
+            }
+        }
+        java.util.Arrays.fill(PAWN_INDEX, -1);
+        i = 0;
+        for (int row = 1; row < 7; row++){
+            for (int file = 0; file < 4; file++){
+                PAWN_INDEX[row * 8 + file] = i;
+                PAWN_SQUARES[i++] = row * 8 + file;
+            }
+        }
+    }
+
+    final String name;
+    final PieceType[] types;
+    final int strongCount;
+    final int pieceCount;
+    final int size;
+    final boolean pawns;
+    final int lead; //the piece the symmetry is taken from: the strong king, or the first pawn
+    private ByteBuffer data;
+
+    Table(String name) {
+        this.name = name;
+        int separator = name.indexOf('v');
+        pieceCount = name.length() - 1;
+        strongCount = separator;
+        types = new PieceType[pieceCount];
+        for (int i = 0, j = 0; i < name.length(); i++){
+            if (i != separator){
+                types[j++] = pieceType(name.charAt(i));
+            }
+        }
+        int pawn = 0;
+        while (pawn < pieceCount && types[pawn] != PieceType.PAWN){
+            pawn++;
+        }
+        pawns = pawn < pieceCount;
+        lead = pawns ? pawn : 0;
+        size = (pawns ? 24 : 10) << (6 * (pieceCount - 1));
+    }
+
+    void setData(ByteBuffer data){
+        this.data = data;
+    }
+
+    boolean isLoaded(){
+        return data != null;
+    }
+
+    int get(int sideToMove, int index){
+        return data.get(sideToMove * size + index);
+    }
+
+    //side 0 is the strong side
+    int side(int piece){
+        return (piece < strongCount) ? 0 : 1;
+    }
+
+    int king(int side){
+        return (side == 0) ? 0 : strongCount;
+    }
+
+    //the same index for every position that is a mirror or rotation of this one: among the symmetries that put
+    //the strong king in the triangle (two when it ends on the diagonal) the smallest index is taken.
+    //squares are packed 6 bits per piece in table order, so probing allocates nothing
+    int index(int squares){
+        if (pawns){
+            return Math.min(index(squares, false, false, false), index(squares, true, false, false));
+        }
+        int king = squares & 63;
+        int file = king & 7;
+        int rank = 7 - (king >>> 3);
+        boolean flipFile = file > 3;
+        boolean flipRank = rank > 3;
+        if (flipFile) file = 7 - file;
+        if (flipRank) rank = 7 - rank;
+        if (file == rank){
+            return Math.min(index(squares, flipFile, flipRank, false), index(squares, flipFile, flipRank, true));
+        }
+        return index(squares, flipFile, flipRank, rank > file);
+    }
+
+    private int index(int squares, boolean flipFile, boolean flipRank, boolean swap){
+        int t = 0;
+        for (int i = 0; i < pieceCount; i++){
+            int square = square(squares, i);
+            int file = square & 7;
+            int rank = 7 - (square >>> 3);
+            if (flipFile) file = 7 - file;
+            if (flipRank) rank = 7 - rank;
+            if (swap){
+                int f = file;
+                file = rank;
+                rank = f;
+            }
+            t |= ((7 - rank) * 8 + file) << (6 * i);
+        }
+        //two pieces of the same type are interchangeable, the lower square goes first
+        for (int i = 1; i < pieceCount - 1; i++){
+            if (types[i] == types[i + 1] && square(t, i) > square(t, i + 1)){
+                t = withSquare(withSquare(t, i, square(t, i + 1)), i + 1, square(t, i));
+            }
+        }
+        int index = pawns ? PAWN_INDEX[square(t, lead)] : TRIANGLE_INDEX[square(t, lead)];
+        if (index < 0){
+            return Integer.MAX_VALUE; //the mirror that leaves the first pawn on the files e-h
+        }
+        for (int i = 0; i < pieceCount; i++){
+            if (i != lead){
+                index = index * 64 + square(t, i);
+            }
+        }
+        return index;
+    }
+
+    int squares(int index){
+        int squares = 0;
+        for (int i = pieceCount - 1; i >= 0; i--){
+            if (i != lead){
+                squares |= (index & 63) << (6 * i);
+                index >>>= 6;
+            }
+        }
+        return squares | (pawns ? PAWN_SQUARES[index] : TRIANGLE_SQUARES[index]) << (6 * lead);
+    }
+
+    static int square(int squares, int piece){
+        return (squares >>> (6 * piece)) & 63;
+    }
+
+    static int withSquare(int squares, int piece, int square){
+        return (squares & ~(63 << (6 * piece))) | square << (6 * piece);
+    }
+
+    //side 0 plays as yellow, its pawns go towards row 0
+    static long attacks(PieceType type, int side, int square, long occupancy){
+        switch (type){
+            case PAWN: return Attacks.pawnAttacks((side == 0) ? Color.YELLOW : Color.RED, square);
+            case KING: return Attacks.kingAttacks(square);
+            case KNIGHT: return Attacks.knightAttacks(square);
+            case BISHOP: return Attacks.bishopAttacks(square, occupancy);
+            case ROOK: return Attacks.rookAttacks(square, occupancy);
+            case QUEEN: return Attacks.queenAttacks(square, occupancy);
+            default: throw new IllegalArgumentException("Unknown piece type " + type);
+        }
+    }
+
+    static char letter(PieceType type){
+        return "PNBRQK".charAt(type.ordinal());
+    }
+
+    static PieceType pieceType(char letter){
+        int i = "PNBRQK".indexOf(letter);
+        if (i < 0){
+            throw new IllegalArgumentException("Invalid piece in table name: " + letter);
+        }
+        return TYPES[i];
+    }
+}
@@ -0,0 +1,236 @@
+package chess.tablebase;
+
+import chess.Attacks;
+import chess.ChessMatch;
+import chess.Color;
+import chess.PieceType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+//perfect play for the positions with 3 or 4 pieces. Tables are memory mapped from the directory
+//the first time a position needs them (files made by TablebaseGenerator)
+public class Tablebase {
+    //probe() when the position is not covered: too many pieces, castling rights, en passant or a missing table
+    public static final int NOT_FOUND = Integer.MIN_VALUE;
+    public static final int MAX_PIECES = 4;
+
+    static final int MAGIC = 0x43544231; //"CTB1"
+    static final int HEADER_SIZE = 8;
+
+    //a side's material: the count of each piece type but the king in base 3 (pawn first), two of a kind at most
+    private static final int SIDES = 243;
+    private static final int[] POWERS = {1, 3, 9, 27, 81};
+    private static final int[] STRENGTH = new int[SIDES];
+    private static final PieceType[] TYPES = PieceType.values();
+    //move buffer for bestMove, one per thread instead of a lock: every search thread can probe
+    private static final ThreadLocal<int[]> MOVES = ThreadLocal.withInitial(() -> new int[ChessMatch.MAX_MOVES]);
+
+    static {
+        for (int side = 0; side < SIDES; side++){
+            int count = 0;
+            int first = 0;
+            int second = 0;
+            for (int type = 4; type >= 0; type--){
+                for (int k = side / POWERS[type] % 3; k > 0; k--){
+                    count++;
+                    if (first == 0){
+                        first = type + 1;
+                    }else if (second == 0){
+                        second = type + 1;
+                    }
+                }
+            }
+            STRENGTH[side] = (count * 6 + first) * 6 + second;
+        }
+    }
+
+    private final Path directory;
+    //by the material of the strong side and of the weak side
+    private final AtomicReferenceArray<Table> tables = new AtomicReferenceArray<>(SIDES * SIDES);
+
+    public Tablebase(Path directory) {
+        this.directory = directory;
+    }
+
+    //>0: the player to move mates in that many plies, <0: it is mated in (-result - 1) plies, 0: draw.
+    //the fifty move rule is not taken into account. Called at every small node of the search, so the table is
+    //found from the piece counts and the squares are read from the bitboards without allocating anything
+    public int probe(ChessMatch match){
+        long occupancy = match.getOccupancy();
+        if (Long.bitCount(occupancy) > MAX_PIECES){
+            return NOT_FOUND;
+        }
+        //the tables don't know about castling, nor about en passant
+        if (match.getCastlingRights() != 0){
+            return NOT_FOUND;
+        }
+        //a pawn on the first or last row is never in a game, only in a position set up by hand
+        if (((match.getBitboard(Color.YELLOW, PieceType.PAWN) | match.getBitboard(Color.RED, PieceType.PAWN)) & 0xFF000000000000FFL) != 0){
+            return NOT_FOUND;
+        }
+        int enPassant = match.getEnPassantSquare();
+        Color player = match.getCurrentPlayer();
+        if (enPassant >= 0 && (Attacks.pawnAttacks((player == Color.YELLOW) ? Color.RED : Color.YELLOW, enPassant) & match.getBitboard(player, PieceType.PAWN)) != 0){
+            return NOT_FOUND;
+        }
+        int yellow = 0;
+        int red = 0;
+        for (int type = 0; type < 5; type++){
+            yellow += Long.bitCount(match.getBitboard(Color.YELLOW, TYPES[type])) * POWERS[type];
+            red += Long.bitCount(match.getBitboard(Color.RED, TYPES[type])) * POWERS[type];
+        }
+        if (yellow == 0 && red == 0){
+            return 0; //two kings
+        }
+        boolean yellowStrong = STRENGTH[yellow] >= STRENGTH[red];
+        Table table = yellowStrong ? table(yellow, red) : table(red, yellow);
+        if (table == null){
+            return NOT_FOUND;
+        }
+
+        //the pieces in table order; the strong side plays as yellow in the tables, so the board is turned if it is red
+        int squares = 0;
+        long pieces = 0L;
+        for (int k = 0; k < table.pieceCount; k++){
+            if (k == 0 || table.types[k] != table.types[k - 1] || table.side(k) != table.side(k - 1)){
+                Color color = ((table.side(k) == 0) == yellowStrong) ? Color.YELLOW : Color.RED;
+                pieces = match.getBitboard(color, table.types[k]);
+            }
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            squares |= (yellowStrong ? square : square ^ 56) << (6 * k);
+        }
+        boolean strongToMove = (player == Color.YELLOW) == yellowStrong;
+        return table.get(strongToMove ? 0 : 1, table.index(squares));
+    }
+
+    //the move that keeps the best result: the fastest mate, else a draw, else the slowest loss; 0 if not found
+    public int bestMove(ChessMatch match){
+        if (probe(match) == NOT_FOUND){
+            return 0;
+        }
+        int[] moves = MOVES.get();
+        int count = match.generateMoves(moves);
+        int best = 0;
+        int bestRank = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++){
+            int move = moves[i];
+            match.doMove(move);
+            int result = probe(match);
+            match.undoLastMove();
+            if (result == NOT_FOUND){
+                continue;
+            }
+            //the result is for the opponent: its loss in few plies is best, its win in few plies is worst
+            int rank = (result < 0) ? 1000 + result : (result == 0) ? 0 : -1000 + result;
+            if (rank > bestRank){
+                bestRank = rank;
+                best = move;
+            }
+        }
+        return best;
+    }
+
+    //used by the generator: the pieces in any order, sides 0 (yellow) and 1 (red) and the side to move
+    int lookup(PieceType[] types, int[] sides, int[] squares, int n, int sideToMove){
+        int yellow = 0;
+        int red = 0;
+        for (int i = 0; i < n; i++){
+            if (types[i] != PieceType.KING){
+                if (sides[i] == 0){
+                    yellow += POWERS[types[i].ordinal()];
+                }else{
+                    red += POWERS[types[i].ordinal()];
+                }
+            }
+        }
+        if (yellow == 0 && red == 0){
+            return 0;
+        }
+        int strong = (STRENGTH[yellow] >= STRENGTH[red]) ? 0 : 1;
+        Table table = (strong == 0) ? table(yellow, red) : table(red, yellow);
+        if (table == null){
+            return NOT_FOUND;
+        }
+        int ordered = 0;
+        int used = 0;
+        for (int k = 0; k < table.pieceCount; k++){
+            int side = (table.side(k) == 0) ? strong : 1 - strong;
+            for (int i = 0; i < n; i++){
+                if ((used & 1 << i) == 0 && types[i] == table.types[k] && sides[i] == side){
+                    used |= 1 << i;
+                    ordered |= ((strong == 0) ? squares[i] : squares[i] ^ 56) << (6 * k);
+                    break;
+                }
+            }
+        }
+        return table.get((sideToMove == strong) ? 0 : 1, table.index(ordered));
+    }
+
+    private Table table(int strong, int weak){
+        int slot = strong * SIDES + weak;
+        Table table = tables.get(slot);
+        if (table == null){
+            table = load(name(strong) + "v" + name(weak));
+            if (!tables.compareAndSet(slot, null, table)){
+                table = tables.get(slot);
+            }
+        }
+        return table.isLoaded() ? table : null;
+    }
+
+    //"K" and the pieces from the strongest, as in the file names: "KRB", "KQ"
+    private static String name(int side){
+        StringBuilder sb = new StringBuilder("K");
+        for (int type = 4; type >= 0; type--){
+            for (int k = side / POWERS[type] % 3; k > 0; k--){
+                sb.append(Table.letter(TYPES[type]));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static int code(Table table, int side){
+        int code = 0;
+        for (int k = 0; k < table.pieceCount; k++){
+            if (table.side(k) == side && table.types[k] != PieceType.KING){
+                code += POWERS[table.types[k].ordinal()];
+            }
+        }
+        return code;
+    }
+
+    //a table without data stands for a missing file, so the file system is asked only once
+    private Table load(String name){
+        Table table = new Table(name);
+        if (directory == null){
+            return table;
+        }
+        Path path = directory.resolve(name + ".tbl");
+        if (!Files.exists(path)){
+            return table;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (data.getInt(0) != MAGIC || data.getInt(4) != table.size || channel.size() != HEADER_SIZE + 2L * table.size){
+                throw new IOException("Invalid table file: " + path);
+            }
+            table.setData(data.position(HEADER_SIZE).slice());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return table;
+    }
+
+    //used by the generator, a table built in memory becomes available to the tables that capture into it
+    void add(Table table){
+        tables.set(code(table, 0) * SIDES + code(table, 1), table);
+    }
+}
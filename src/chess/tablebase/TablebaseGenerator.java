@@ -0,0 +1,364 @@
+package chess.tablebase;
+
+import chess.PieceType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+//retrograde analysis of the endings with 3 and 4 pieces. The moves come from the same Attacks tables the pieces
+//use. A first pass finds the mates, stalemates and the results of captures and promotions (looked up in the
+//tables they lead to, which are built first); then, one distance at a time, the positions just solved pass their result back
+//to the positions that lead to them. Every pass runs in parallel over the table, the shared counters are atomic
+public class TablebaseGenerator {
+    //working values: 0 unknown, >0 win in that many plies, <0 loss in (-value - 1) plies
+    private static final int ILLEGAL = Integer.MIN_VALUE;
+    private static final int STALEMATE = Integer.MAX_VALUE;
+    //added to the move counter of a position with a capture that doesn't lose, so it can never become a loss
+    private static final int NOT_LOST = 1 << 20;
+
+    private static final PieceType[] PROMOTIONS = {PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT};
+    private static final PieceType[] NO_PROMOTION = {null};
+
+    private final Tablebase tablebase;
+    private final Path directory;
+
+    public TablebaseGenerator(Path directory) {
+        this.directory = directory;
+        this.tablebase = new Tablebase(directory);
+    }
+
+    //every combination of 3 and 4 pieces, each after the tables its captures and promotions lead to
+    public static List<String> allTables(){
+        List<String> names = new ArrayList<>();
+        String pieces = "QRBN";
+        for (char a : pieces.toCharArray()){
+            names.add("K" + a + "vK");
+        }
+        for (int i = 0; i < 4; i++){
+            for (int j = i; j < 4; j++){
+                names.add("K" + pieces.charAt(i) + pieces.charAt(j) + "vK");
+                names.add("K" + pieces.charAt(i) + "vK" + pieces.charAt(j));
+            }
+        }
+        names.add("KPvK");
+        for (char a : pieces.toCharArray()){
+            names.add("K" + a + "PvK");
+            names.add("K" + a + "vKP");
+        }
+        names.add("KPPvK");
+        names.add("KPvKP");
+        return names;
+    }
+
+    public void generate(String name) throws IOException {
+        Table table = new Table(name);
+        int entries = 2 * table.size;
+        AtomicIntegerArray values = new AtomicIntegerArray(entries);
+        AtomicIntegerArray remaining = new AtomicIntegerArray(entries);
+        int[] lossFloor = new int[entries];
+        AtomicInteger maxLevel = new AtomicInteger();
+
+        IntStream.range(0, entries).parallel().forEach(i -> initialize(table, i, values, remaining, lossFloor, maxLevel));
+        for (int level = 0; level <= maxLevel.get(); level++){
+            int k = level;
+            IntStream.range(0, entries).parallel().forEach(i -> {
+                if (level(values.get(i)) == k){
+                    propagate(table, i, k, values, remaining, lossFloor, maxLevel);
+                }
+            });
+        }
+
+        ByteBuffer data = ByteBuffer.allocate(Tablebase.HEADER_SIZE + entries);
+        data.putInt(Tablebase.MAGIC);
+        data.putInt(table.size);
+        for (int i = 0; i < entries; i++){
+            int value = values.get(i);
+            if (value == ILLEGAL || value == STALEMATE){
+                value = 0;
+            }
+            if (value > 127 || value < -128){
+                throw new IllegalStateException("Distance to mate too long for " + name);
+            }
+            data.put((byte) value);
+        }
+        data.flip();
+        Files.createDirectories(directory);
+        try (FileChannel channel = FileChannel.open(directory.resolve(name + ".tbl"), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)){
+            while (data.hasRemaining()){
+                channel.write(data);
+            }
+        }
+        data.position(Tablebase.HEADER_SIZE);
+        table.setData(data.slice());
+        tablebase.add(table);
+    }
+
+    private static int level(int value){
+        if (value == ILLEGAL || value == STALEMATE || value == 0){
+            return -1;
+        }
+        return (value > 0) ? value : -value - 1;
+    }
+
+    private void initialize(Table table, int entry, AtomicIntegerArray values, AtomicIntegerArray remaining, int[] lossFloor, AtomicInteger maxLevel){
+        int side = entry / table.size;
+        int index = entry % table.size;
+        int n = table.pieceCount;
+        int[] squares = unpack(table.squares(index), n);
+
+        long occupancy = 0L;
+        for (int i = 0; i < n; i++){
+            int row = squares[i] >>> 3;
+            if ((occupancy & 1L << squares[i]) != 0 || (table.types[i] == PieceType.PAWN && (row == 0 || row == 7))){
+                values.set(entry, ILLEGAL);
+                return;
+            }
+            occupancy |= 1L << squares[i];
+        }
+        //mirrored duplicates are left out, only the index every symmetry maps to is solved
+        if (table.index(pack(squares, n)) != index || attacked(table, squares, occupancy, squares[table.king(1 - side)], side, -1)){
+            values.set(entry, ILLEGAL);
+            return;
+        }
+
+        int legal = 0;
+        int captureWin = Integer.MAX_VALUE;
+        int captureLoss = 0;
+        boolean safeCapture = false;
+        int[] successors = new int[64];
+        int successorCount = 0;
+        int[] next = new int[n];
+        for (int piece = 0; piece < n; piece++){
+            if (table.side(piece) != side){
+                continue;
+            }
+            long own = 0L;
+            for (int i = 0; i < n; i++){
+                if (table.side(i) == side) own |= 1L << squares[i];
+            }
+            boolean pawn = table.types[piece] == PieceType.PAWN;
+            long targets = pawn ? pawnMoves(side, squares[piece], occupancy, own) : Table.attacks(table.types[piece], side, squares[piece], occupancy) & ~own;
+            for (; targets != 0; targets &= targets - 1){
+                int to = Long.numberOfTrailingZeros(targets);
+                int captured = -1;
+                for (int i = 0; i < n; i++){
+                    if (squares[i] == to) captured = i;
+                }
+                System.arraycopy(squares, 0, next, 0, n);
+                next[piece] = to;
+                long nextOccupancy = (occupancy & ~(1L << squares[piece])) | 1L << to;
+                if (attacked(table, next, nextOccupancy, next[table.king(side)], 1 - side, captured)){
+                    continue;
+                }
+                legal++;
+                boolean promotion = pawn && (to >>> 3) == ((side == 0) ? 0 : 7);
+                if (captured >= 0 || promotion){
+                    //leaves the table: the result is already known from the table it goes to
+                    for (PieceType type : promotion ? PROMOTIONS : NO_PROMOTION){
+                        int result = otherTableResult(table, next, captured, piece, type, 1 - side);
+                        if (result < 0){
+                            captureWin = Math.min(captureWin, -result);
+                        }else if (result > 0){
+                            captureLoss = Math.max(captureLoss, result + 1);
+                        }else{
+                            safeCapture = true;
+                        }
+                    }
+                }else{
+                    int successor = (1 - side) * table.size + table.index(pack(next, n));
+                    boolean seen = false;
+                    for (int i = 0; i < successorCount && !seen; i++){
+                        seen = successors[i] == successor;
+                    }
+                    if (!seen){
+                        if (successorCount == successors.length){
+                            successors = java.util.Arrays.copyOf(successors, successorCount * 2);
+                        }
+                        successors[successorCount++] = successor;
+                    }
+                }
+            }
+        }
+
+        if (legal == 0){
+            boolean check = attacked(table, squares, occupancy, squares[table.king(side)], 1 - side, -1);
+            values.set(entry, check ? -1 : STALEMATE);
+            return;
+        }
+        lossFloor[entry] = captureLoss;
+        remaining.set(entry, successorCount + ((safeCapture || captureWin != Integer.MAX_VALUE) ? NOT_LOST : 0));
+        if (captureWin != Integer.MAX_VALUE){
+            values.set(entry, captureWin);
+            maxLevel.accumulateAndGet(captureWin, Math::max);
+        }else if (successorCount == 0 && !safeCapture){
+            //every move is a capture that loses
+            values.set(entry, -captureLoss - 1);
+            maxLevel.accumulateAndGet(captureLoss, Math::max);
+        }
+    }
+
+    //pawn pushes and captures, the double step only from the starting row. En passant is left out: the tables
+    //score a double step as if it couldn't be taken, and Tablebase doesn't probe positions where it can
+    private static long pawnMoves(int side, int square, long occupancy, long own){
+        int forward = (side == 0) ? -8 : 8;
+        long moves = Table.attacks(PieceType.PAWN, side, square, occupancy) & occupancy & ~own;
+        int to = square + forward;
+        if ((occupancy & 1L << to) == 0){
+            moves |= 1L << to;
+            if ((square >>> 3) == ((side == 0) ? 6 : 1) && (occupancy & 1L << (to + forward)) == 0){
+                moves |= 1L << (to + forward);
+            }
+        }
+        return moves;
+    }
+
+    //the result for the side to move after a capture (captured >= 0) and/or a promotion (promotion != null)
+    private int otherTableResult(Table table, int[] squares, int captured, int mover, PieceType promotion, int sideToMove){
+        int n = (captured >= 0) ? table.pieceCount - 1 : table.pieceCount;
+        PieceType[] types = new PieceType[n];
+        int[] sides = new int[n];
+        int[] remainingSquares = new int[n];
+        for (int i = 0, j = 0; i < table.pieceCount; i++){
+            if (i != captured){
+                types[j] = (i == mover && promotion != null) ? promotion : table.types[i];
+                sides[j] = table.side(i);
+                remainingSquares[j++] = squares[i];
+            }
+        }
+        int result = tablebase.lookup(types, sides, remainingSquares, n, sideToMove);
+        if (result == Tablebase.NOT_FOUND){
+            throw new IllegalStateException("Table " + table.name + " needs the tables its captures and promotions lead to");
+        }
+        return result;
+    }
+
+    //the position (side to move just found its result at this level) tells the positions leading to it:
+    //a loss makes them a win one ply longer, a win takes one move away from their way out
+    private void propagate(Table table, int entry, int level, AtomicIntegerArray values, AtomicIntegerArray remaining, int[] lossFloor, AtomicInteger maxLevel){
+        int side = entry / table.size;
+        int previous = 1 - side; //the side that just moved
+        int n = table.pieceCount;
+        int[] squares = unpack(table.squares(entry % table.size), n);
+        long occupancy = 0L;
+        for (int square : squares){
+            occupancy |= 1L << square;
+        }
+        boolean lost = values.get(entry) < 0;
+
+        int[] predecessors = new int[64];
+        int count = 0;
+        int[] before = new int[n];
+        for (int piece = 0; piece < n; piece++){
+            if (table.side(piece) != previous){
+                continue;
+            }
+            //pieces move the same way backwards, pawns one or two rows back; uncaptures and unpromotions come
+            //from other tables
+            long origins = (table.types[piece] == PieceType.PAWN) ? pawnOrigins(previous, squares[piece], occupancy)
+                    : Table.attacks(table.types[piece], previous, squares[piece], occupancy) & ~occupancy;
+            for (; origins != 0; origins &= origins - 1){
+                int from = Long.numberOfTrailingZeros(origins);
+                System.arraycopy(squares, 0, before, 0, n);
+                before[piece] = from;
+                long beforeOccupancy = (occupancy & ~(1L << squares[piece])) | 1L << from;
+                //the side that is to move now can't have been left in check
+                if (attacked(table, before, beforeOccupancy, before[table.king(side)], previous, -1)){
+                    continue;
+                }
+                int predecessor = previous * table.size + table.index(pack(before, n));
+                boolean seen = false;
+                for (int i = 0; i < count && !seen; i++){
+                    seen = predecessors[i] == predecessor;
+                }
+                if (seen){
+                    continue;
+                }
+                if (count == predecessors.length){
+                    predecessors = java.util.Arrays.copyOf(predecessors, count * 2);
+                }
+                predecessors[count++] = predecessor;
+
+                if (lost){
+                    int win = level + 1;
+                    while (true){
+                        int current = values.get(predecessor);
+                        if ((current != 0 && (current < 0 || current <= win)) || values.compareAndSet(predecessor, current, win)){
+                            break;
+                        }
+                    }
+                    maxLevel.accumulateAndGet(win, Math::max);
+                }else if (remaining.decrementAndGet(predecessor) == 0){
+                    int loss = Math.max(level + 1, lossFloor[predecessor]);
+                    values.compareAndSet(predecessor, 0, -loss - 1);
+                    maxLevel.accumulateAndGet(loss, Math::max);
+                }
+            }
+        }
+    }
+
+    private static int pack(int[] squares, int n){
+        int packed = 0;
+        for (int i = 0; i < n; i++){
+            packed |= squares[i] << (6 * i);
+        }
+        return packed;
+    }
+
+    private static int[] unpack(int packed, int n){
+        int[] squares = new int[n];
+        for (int i = 0; i < n; i++){
+            squares[i] = Table.square(packed, i);
+        }
+        return squares;
+    }
+
+    private static long pawnOrigins(int side, int square, long occupancy){
+        int back = (side == 0) ? 8 : -8;
+        int from = square + back;
+        int row = from >>> 3;
+        if (row < 1 || row > 6 || (occupancy & 1L << from) != 0){
+            return 0L;
+        }
+        long origins = 1L << from;
+        if (row == ((side == 0) ? 5 : 2) && (occupancy & 1L << (from + back)) == 0){
+            origins |= 1L << (from + back);
+        }
+        return origins;
+    }
+
+    //is the square attacked by the pieces of the side, leaving out a captured piece
+    private static boolean attacked(Table table, int[] squares, long occupancy, int target, int side, int captured){
+        for (int i = 0; i < table.pieceCount; i++){
+            if (i != captured && table.side(i) == side && (Table.attacks(table.types[i], table.side(i), squares[i], occupancy) & 1L << target) != 0){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //no arguments: every table; otherwise the tables named, e.g. KQvK KRvK KQvKR KPvK
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1){
+            System.out.println("Usage: TablebaseGenerator directory [tables...]");
+            return;
+        }
+        TablebaseGenerator generator = new TablebaseGenerator(Paths.get(args[0]));
+        List<String> names = (args.length > 1) ? List.of(args).subList(1, args.length) : allTables();
+        for (String name : names){
+            long start = System.nanoTime();
+            generator.generate(name);
+            System.out.println(name + ": " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package chess.variant;
+
+import boardgame.BoardGeometry;
+import chess.ChessException;
+import chess.PieceType;
+
+//the games VariantMatch can play: the board size, the initial position (the rows from the top as in FEN, uppercase
+//for yellow) and the pieces a pawn can be promoted to
+public enum Variant {
+    //6x6 without bishops (Los Alamos chess)
+    LOS_ALAMOS(6, 6, "rnqknr/pppppp/6/6/PPPPPP/RNQKNR", PieceType.QUEEN, PieceType.ROOK, PieceType.KNIGHT),
+    //5x5 (Gardner minichess)
+    GARDNER(5, 5, "rnbqk/ppppp/5/PPPPP/RNBQK", PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT);
+
+    private final BoardGeometry geometry;
+    private final String setup;
+    private final PieceType[] promotions;
+
+    Variant(int rows, int columns, String setup, PieceType... promotions) {
+        geometry = BoardGeometry.of(rows, columns);
+        this.setup = setup;
+        this.promotions = promotions;
+    }
+
+    public BoardGeometry getGeometry(){
+        return geometry;
+    }
+
+    public String getSetup(){
+        return setup;
+    }
+
+    public boolean canPromoteTo(PieceType type){
+        for (PieceType promotion : promotions){
+            if (promotion == type){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //shared array, must not be changed
+    PieceType[] promotions(){
+        return promotions;
+    }
+
+    //"los-alamos", "Gardner"... : the name without case, with '-' or ' ' for '_'
+    public static Variant of(String name){
+        String key = name.trim().toUpperCase().replace('-', '_').replace(' ', '_');
+        for (Variant variant : values()){
+            if (variant.name().equals(key)){
+                return variant;
+            }
+        }
+        throw new ChessException("Unknown variant: " + name);
+    }
+}
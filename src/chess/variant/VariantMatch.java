@@ -0,0 +1,470 @@
+package chess.variant;
+
+import boardgame.Board;
+import boardgame.BoardGeometry;
+import chess.ChessException;
+import chess.Color;
+import chess.GameState;
+import chess.PieceType;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+//a game of a Variant on a board of its own size. The rules of chess without castling, two-square pawn moves or
+//en passant, as played on the small boards. The pieces find their moves in the BoardGeometry tables and checks are
+//found walking the same tables out from the king, so nothing here depends on the board having 8 columns.
+//a move is an int: from | to << 8 | promotion << 16 (the PieceType ordinal + 1, 0 when it is not a promotion)
+public final class VariantMatch {
+    public static final int MAX_MOVES = 256;
+
+    private static final PieceType[] TYPES = PieceType.values();
+
+    private final Variant variant;
+    private final BoardGeometry geometry;
+    private final Board board;
+    private final VariantPiece[] kings = new VariantPiece[2];
+    private final long[] keys; //zobrist keys, one per color, type and square, and the last one for red to move
+    private int turn = 1;
+    private Color currentPlayer = Color.YELLOW;
+    private boolean check;
+    private GameState gameState = GameState.ONGOING;
+    private int halfmoveClock;
+    private long key;
+    private long[] positionKeys = new long[128]; //one per position played, for the threefold repetition
+    private int positionCount;
+    private Ply[] plies = new Ply[64];
+    private int plyCount;
+    private final int[] moveBuffer = new int[MAX_MOVES];
+    private final int[] targetBuffer;
+
+    public VariantMatch(Variant variant) {
+        this.variant = variant;
+        geometry = variant.getGeometry();
+        board = new Board(geometry);
+        targetBuffer = new int[geometry.getSize()];
+        keys = new long[2 * 6 * geometry.getSize() + 1];
+        SplittableRandom random = new SplittableRandom(0x5EED);
+        for (int i = 0; i < keys.length; i++){
+            keys[i] = random.nextLong();
+        }
+        initialSetup(variant.getSetup());
+        recordPosition();
+        updateGameState();
+    }
+
+    public Variant getVariant(){
+        return variant;
+    }
+
+    public BoardGeometry getGeometry(){
+        return geometry;
+    }
+
+    public int getTurn(){
+        return turn;
+    }
+
+    public Color getCurrentPlayer(){
+        return currentPlayer;
+    }
+
+    public boolean getCheck(){
+        return check;
+    }
+
+    public GameState getGameState(){
+        return gameState;
+    }
+
+    public Color getWinner(){
+        return (gameState == GameState.CHECKMATE) ? opponent(currentPlayer) : null;
+    }
+
+    public VariantPiece getPiece(int square){
+        return (VariantPiece) board.piece(geometry.position(square));
+    }
+
+    public VariantPiece[][] getPieces(){
+        VariantPiece[][] mat = new VariantPiece[geometry.getRows()][geometry.getColumns()];
+        for (int i = 0; i < geometry.getRows(); i++){
+            for (int j = 0; j < geometry.getColumns(); j++){
+                mat[i][j] = (VariantPiece) board.piece(i, j);
+            }
+        }
+        return mat;
+    }
+
+    public static int from(int move){
+        return move & 0xFF;
+    }
+
+    public static int to(int move){
+        return (move >>> 8) & 0xFF;
+    }
+
+    public static PieceType promotion(int move){
+        int type = move >>> 16;
+        return (type == 0) ? null : TYPES[type - 1];
+    }
+
+    //coordinate notation of the variant's board, e.g. "b5b6" or "a5a6q"
+    public String moveToString(int move){
+        String text = geometry.squareName(from(move)) + geometry.squareName(to(move));
+        PieceType promotion = promotion(move);
+        return (promotion == null) ? text : text + Character.toLowerCase("PNBRQK".charAt(promotion.ordinal()));
+    }
+
+    //the target squares of the legal moves of the piece on the source square
+    public boolean[][] possibleMoves(int source){
+        validateSource(source);
+        boolean[][] mat = new boolean[geometry.getRows()][geometry.getColumns()];
+        int count = generateMoves(source, moveBuffer);
+        for (int i = 0; i < count; i++){
+            mat[geometry.row(to(moveBuffer[i]))][geometry.column(to(moveBuffer[i]))] = true;
+        }
+        return mat;
+    }
+
+    //true when a pawn goes to the last row, so a promotion type must be chosen
+    public boolean isPromotion(int source, int target){
+        VariantPiece piece = getPiece(source);
+        return piece != null && piece.getType() == PieceType.PAWN
+                && geometry.neighbor(target, VariantPiece.pawnDirection(piece.getColor())) < 0;
+    }
+
+    //plays the move and returns the captured piece; the promotion is only read when isPromotion is true
+    public VariantPiece performMove(int source, int target, PieceType promotion){
+        if (gameState != GameState.ONGOING){
+            throw new ChessException("The game is over: " + gameState);
+        }
+        validateSource(source);
+        if (isPromotion(source, target) && !variant.canPromoteTo(promotion)){
+            throw new ChessException("Invalid promotion: " + promotion);
+        }
+        int move = findMove(source, target, promotion);
+        if (move == 0){
+            int count = getPiece(source).targets(targetBuffer, 0);
+            for (int i = 0; i < count; i++){
+                if (targetBuffer[i] == target){
+                    //the piece can go there, so the move would leave the king in check
+                    throw new ChessException("You can't put yourself in check");
+                }
+            }
+            throw new ChessException("The chosen piece can't move to target position");
+        }
+        doMove(move);
+        updateGameState();
+        return plies[plyCount - 1].captured;
+    }
+
+    private void validateSource(int source){
+        VariantPiece piece = getPiece(source);
+        if (piece == null){
+            throw new ChessException("There is no piece on source position");
+        }
+        if (piece.getColor() != currentPlayer){
+            throw new ChessException("The chosen piece is not yours");
+        }
+    }
+
+    private int findMove(int from, int to, PieceType promotion){
+        int count = generateMoves(from, moveBuffer);
+        for (int i = 0; i < count; i++){
+            int move = moveBuffer[i];
+            if (to(move) == to && (promotion(move) == null || promotion(move) == promotion)){
+                return move;
+            }
+        }
+        return 0;
+    }
+
+    //writes the legal moves of the current player into the buffer and returns how many were written
+    public int generateMoves(int[] moves){
+        return generateMoves(-1, moves);
+    }
+
+    //all the squares when source is -1; with a null buffer it stops at the first legal move and returns 1
+    private int generateMoves(int source, int[] moves){
+        int count = 0;
+        int first = (source < 0) ? 0 : source;
+        int last = (source < 0) ? geometry.getSize() - 1 : source;
+        for (int from = first; from <= last; from++){
+            VariantPiece piece = getPiece(from);
+            if (piece == null || piece.getColor() != currentPlayer){
+                continue;
+            }
+            int targets = piece.targets(targetBuffer, 0);
+            for (int i = 0; i < targets; i++){
+                int to = targetBuffer[i];
+                if (!isLegal(piece, from, to)){
+                    continue;
+                }
+                if (moves == null){
+                    return 1;
+                }
+                int move = from | to << 8;
+                if (isPromotion(from, to)){
+                    for (PieceType promotion : variant.promotions()){
+                        moves[count++] = move | (promotion.ordinal() + 1) << 16;
+                    }
+                }else{
+                    moves[count++] = move;
+                }
+            }
+        }
+        return count;
+    }
+
+    //plays the move on the board alone and looks if the own king is attacked. The piece a pawn promotes to
+    //stands on the same square, so the promotion doesn't change the answer
+    private boolean isLegal(VariantPiece piece, int from, int to){
+        VariantPiece captured = (VariantPiece) board.removePiece(geometry.position(to));
+        board.removePiece(geometry.position(from));
+        board.placePiece(piece, geometry.position(to));
+        int king = (piece.getType() == PieceType.KING) ? to : kings[piece.getColor().ordinal()].getSquare();
+        boolean legal = !isAttacked(king, opponent(piece.getColor()));
+        board.removePiece(geometry.position(to));
+        board.placePiece(piece, geometry.position(from));
+        if (captured != null){
+            board.placePiece(captured, geometry.position(to));
+        }
+        return legal;
+    }
+
+    //reverse lookup from the square: a knight jump, a king step, a pawn capture or the first piece on a ray
+    public boolean isAttacked(int square, Color attacker){
+        for (int from : geometry.knightJumps(square)){
+            if (is(from, attacker, PieceType.KNIGHT)){
+                return true;
+            }
+        }
+        for (int direction : VariantPiece.ALL_DIRECTIONS){
+            int from = geometry.neighbor(square, direction);
+            if (from >= 0 && is(from, attacker, PieceType.KING)){
+                return true;
+            }
+        }
+        for (int direction : VariantPiece.pawnCaptures(attacker)){
+            int from = geometry.neighbor(square, BoardGeometry.opposite(direction));
+            if (from >= 0 && is(from, attacker, PieceType.PAWN)){
+                return true;
+            }
+        }
+        return slider(square, attacker, VariantPiece.ROOK_DIRECTIONS, PieceType.ROOK)
+                || slider(square, attacker, VariantPiece.BISHOP_DIRECTIONS, PieceType.BISHOP);
+    }
+
+    private boolean slider(int square, Color attacker, int[] directions, PieceType type){
+        for (int direction : directions){
+            for (int from : geometry.ray(square, direction)){
+                VariantPiece p = getPiece(from);
+                if (p != null){
+                    if (p.getColor() == attacker && (p.getType() == type || p.getType() == PieceType.QUEEN)){
+                        return true;
+                    }
+                    break;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean is(int square, Color color, PieceType type){
+        VariantPiece p = getPiece(square);
+        return p != null && p.getColor() == color && p.getType() == type;
+    }
+
+    //fast path for search and perft: the move must be legal, and the game state is not evaluated
+    public void doMove(int move){
+        if (plyCount == plies.length){
+            plies = Arrays.copyOf(plies, plyCount * 2);
+        }
+        if (plies[plyCount] == null){
+            plies[plyCount] = new Ply();
+        }
+        Ply ply = plies[plyCount++];
+        ply.move = move;
+        ply.halfmoveClock = halfmoveClock;
+        ply.key = key;
+        ply.check = check;
+        ply.gameState = gameState;
+
+        int from = from(move);
+        int to = to(move);
+        VariantPiece piece = (VariantPiece) board.removePiece(geometry.position(from));
+        ply.captured = (VariantPiece) board.removePiece(geometry.position(to));
+        if (ply.captured != null){
+            key ^= pieceKey(ply.captured, to);
+        }
+        key ^= pieceKey(piece, from);
+        PieceType promotion = promotion(move);
+        ply.pawn = null;
+        if (promotion != null){
+            ply.pawn = piece;
+            piece = new VariantPiece(board, piece.getColor(), promotion);
+        }
+        board.placePiece(piece, geometry.position(to));
+        key ^= pieceKey(piece, to);
+
+        halfmoveClock = (ply.pawn != null || piece.getType() == PieceType.PAWN || ply.captured != null) ? 0 : halfmoveClock + 1;
+        nextTurn();
+        recordPosition();
+        check = isAttacked(kings[currentPlayer.ordinal()].getSquare(), opponent(currentPlayer));
+        gameState = GameState.ONGOING;
+    }
+
+    public void undoLastMove(){
+        if (plyCount == 0){
+            throw new IllegalStateException("There is no move to undo");
+        }
+        Ply ply = plies[--plyCount];
+        int from = from(ply.move);
+        int to = to(ply.move);
+        VariantPiece piece = (VariantPiece) board.removePiece(geometry.position(to));
+        board.placePiece((ply.pawn != null) ? ply.pawn : piece, geometry.position(from));
+        if (ply.captured != null){
+            board.placePiece(ply.captured, geometry.position(to));
+        }
+        previousTurn();
+        positionCount--;
+        halfmoveClock = ply.halfmoveClock;
+        key = ply.key;
+        check = ply.check;
+        gameState = ply.gameState;
+        ply.captured = null;
+        ply.pawn = null;
+    }
+
+    //doMove skips this, call it once after a series of doMove calls to know how the game stands
+    public void updateGameState(){
+        check = isAttacked(kings[currentPlayer.ordinal()].getSquare(), opponent(currentPlayer));
+        if (generateMoves(-1, null) == 0){
+            gameState = check ? GameState.CHECKMATE : GameState.STALEMATE;
+        }else if (halfmoveClock >= 100){
+            gameState = GameState.FIFTY_MOVE_RULE;
+        }else if (isInsufficientMaterial()){
+            gameState = GameState.INSUFFICIENT_MATERIAL;
+        }else if (repetitions() >= 3){
+            gameState = GameState.THREEFOLD_REPETITION;
+        }else{
+            gameState = GameState.ONGOING;
+        }
+    }
+
+    //kings and at most one knight or bishop, or only bishops all on squares of the same color
+    public boolean isInsufficientMaterial(){
+        int minors = 0;
+        int knights = 0;
+        int bishopColors = 0; //bit 0: a bishop on a light square, bit 1: on a dark one
+        for (int square = 0; square < geometry.getSize(); square++){
+            VariantPiece p = getPiece(square);
+            if (p == null || p.getType() == PieceType.KING){
+                continue;
+            }
+            switch (p.getType()){
+                case KNIGHT:
+                    knights++;
+                    break;
+                case BISHOP:
+                    bishopColors |= 1 << ((geometry.row(square) + geometry.column(square)) & 1);
+                    break;
+                default:
+                    return false;
+            }
+            minors++;
+        }
+        return minors <= 1 || (knights == 0 && bishopColors != 3);
+    }
+
+    private int repetitions(){
+        int count = 1;
+        //only positions since the last capture or pawn move can repeat, and only with the same player to move
+        int limit = Math.max(0, positionCount - 1 - halfmoveClock);
+        for (int i = positionCount - 3; i >= limit; i -= 2){
+            if (positionKeys[i] == key){
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void recordPosition(){
+        if (positionCount == positionKeys.length){
+            positionKeys = Arrays.copyOf(positionKeys, positionCount * 2);
+        }
+        positionKeys[positionCount++] = key;
+    }
+
+    private long pieceKey(VariantPiece piece, int square){
+        return keys[(piece.getColor().ordinal() * 6 + piece.getType().ordinal()) * geometry.getSize() + square];
+    }
+
+    private void nextTurn(){
+        turn++;
+        currentPlayer = opponent(currentPlayer);
+        key ^= keys[keys.length - 1];
+    }
+
+    private void previousTurn(){
+        turn--;
+        currentPlayer = opponent(currentPlayer);
+    }
+
+    private static Color opponent(Color color){
+        return (color == Color.YELLOW) ? Color.RED : Color.YELLOW;
+    }
+
+    //the rows from the top separated by '/', FEN letters for the pieces and digits for the empty squares
+    private void initialSetup(String setup){
+        String[] rows = setup.split("/");
+        if (rows.length != geometry.getRows()){
+            throw new ChessException("The setup must have " + geometry.getRows() + " rows: " + setup);
+        }
+        for (int row = 0; row < rows.length; row++){
+            int column = 0;
+            for (int i = 0; i < rows[row].length(); i++){
+                char c = rows[row].charAt(i);
+                if (Character.isDigit(c)){
+                    int empty = c - '0';
+                    //two digits for the wide boards
+                    while (i + 1 < rows[row].length() && Character.isDigit(rows[row].charAt(i + 1))){
+                        empty = empty * 10 + rows[row].charAt(++i) - '0';
+                    }
+                    column += empty;
+                    continue;
+                }
+                int type = "pnbrqk".indexOf(Character.toLowerCase(c));
+                if (type < 0 || column >= geometry.getColumns()){
+                    throw new ChessException("Invalid setup: " + setup);
+                }
+                Color color = Character.isUpperCase(c) ? Color.YELLOW : Color.RED;
+                VariantPiece piece = new VariantPiece(board, color, TYPES[type]);
+                board.placePiece(piece, geometry.position(geometry.square(row, column)));
+                key ^= pieceKey(piece, geometry.square(row, column));
+                if (piece.getType() == PieceType.KING){
+                    if (kings[color.ordinal()] != null){
+                        throw new ChessException("Only one " + color + " king can be set up: " + setup);
+                    }
+                    kings[color.ordinal()] = piece;
+                }
+                column++;
+            }
+            if (column != geometry.getColumns()){
+                throw new ChessException("Row " + (row + 1) + " of the setup must have " + geometry.getColumns() + " squares: " + setup);
+            }
+        }
+        if (kings[0] == null || kings[1] == null){
+            throw new ChessException("The setup needs a king of each color: " + setup);
+        }
+    }
+
+    private static class Ply {
+        int move;
+        VariantPiece captured;
+        VariantPiece pawn;
+        int halfmoveClock;
+        long key;
+        boolean check;
+        GameState gameState;
+    }
+}
@@ -0,0 +1,138 @@
+package chess.variant;
+
+import boardgame.Board;
+import boardgame.BoardGeometry;
+import boardgame.Piece;
+import chess.Color;
+import chess.PieceType;
+
+import static boardgame.BoardGeometry.*;
+
+//a piece of a VariantMatch. The moves are read from the tables of the board's geometry (neighbours for the king
+//and the pawns, knight jumps, rays for the sliders), so the same code moves on any board size and never checks
+//the bounds while moving
+public class VariantPiece extends Piece {
+    static final int[] ROOK_DIRECTIONS = {NORTH, EAST, SOUTH, WEST};
+    static final int[] BISHOP_DIRECTIONS = {NORTH_EAST, SOUTH_EAST, SOUTH_WEST, NORTH_WEST};
+    static final int[] ALL_DIRECTIONS = {NORTH, NORTH_EAST, EAST, SOUTH_EAST, SOUTH, SOUTH_WEST, WEST, NORTH_WEST};
+    //yellow pawns move up the board (towards row 0), red pawns move down
+    private static final int[][] PAWN_CAPTURES = {{SOUTH_WEST, SOUTH_EAST}, {NORTH_WEST, NORTH_EAST}};
+
+    private final Color color;
+    private final PieceType type;
+
+    public VariantPiece(Board board, Color color, PieceType type) {
+        super(board);
+        this.color = color;
+        this.type = type;
+    }
+
+    public Color getColor(){
+        return color;
+    }
+
+    public PieceType getType(){
+        return type;
+    }
+
+    //-1 when the piece was captured
+    public int getSquare(){
+        return (position == null) ? -1 : getBoard().getGeometry().square(position);
+    }
+
+    static int pawnDirection(Color color){
+        return (color == Color.YELLOW) ? NORTH : SOUTH;
+    }
+
+    static int[] pawnCaptures(Color color){
+        return PAWN_CAPTURES[color.ordinal()];
+    }
+
+    //the squares the piece can go to without looking at checks, written into the buffer from count on; returns
+    //the new count. A buffer of geometry.getSize() squares is always enough
+    int targets(int[] buffer, int count){
+        BoardGeometry geometry = getBoard().getGeometry();
+        int square = getSquare();
+        switch (type){
+            case PAWN:
+                int ahead = geometry.neighbor(square, pawnDirection(color));
+                if (ahead >= 0 && piece(geometry, ahead) == null){
+                    buffer[count++] = ahead;
+                }
+                for (int direction : pawnCaptures(color)){
+                    int to = geometry.neighbor(square, direction);
+                    if (to >= 0 && isOpponent(piece(geometry, to))){
+                        buffer[count++] = to;
+                    }
+                }
+                return count;
+            case KNIGHT:
+                for (int to : geometry.knightJumps(square)){
+                    if (!isOwn(piece(geometry, to))){
+                        buffer[count++] = to;
+                    }
+                }
+                return count;
+            case KING:
+                for (int direction : ALL_DIRECTIONS){
+                    int to = geometry.neighbor(square, direction);
+                    if (to >= 0 && !isOwn(piece(geometry, to))){
+                        buffer[count++] = to;
+                    }
+                }
+                return count;
+            case BISHOP:
+                return slide(geometry, square, BISHOP_DIRECTIONS, buffer, count);
+            case ROOK:
+                return slide(geometry, square, ROOK_DIRECTIONS, buffer, count);
+            default:
+                return slide(geometry, square, ALL_DIRECTIONS, buffer, count);
+        }
+    }
+
+    private int slide(BoardGeometry geometry, int square, int[] directions, int[] buffer, int count){
+        for (int direction : directions){
+            for (int to : geometry.ray(square, direction)){
+                VariantPiece p = piece(geometry, to);
+                if (p == null){
+                    buffer[count++] = to;
+                    continue;
+                }
+                if (p.color != color){
+                    buffer[count++] = to;
+                }
+                break;
+            }
+        }
+        return count;
+    }
+
+    private VariantPiece piece(BoardGeometry geometry, int square){
+        return (VariantPiece) getBoard().piece(geometry.position(square));
+    }
+
+    private boolean isOwn(VariantPiece p){
+        return p != null && p.color == color;
+    }
+
+    private boolean isOpponent(VariantPiece p){
+        return p != null && p.color != color;
+    }
+
+    @Override
+    public boolean[][] possibleMoves(){
+        Board board = getBoard();
+        boolean[][] mat = new boolean[board.getRows()][board.getColumns()];
+        int[] buffer = new int[board.getGeometry().getSize()];
+        int count = targets(buffer, 0);
+        for (int i = 0; i < count; i++){
+            mat[board.getGeometry().row(buffer[i])][board.getGeometry().column(buffer[i])] = true;
+        }
+        return mat;
+    }
+
+    @Override
+    public String toString(){
+        return String.valueOf("PNBRQK".charAt(type.ordinal()));
+    }
+}